@@ -0,0 +1,58 @@
+package diabetes;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+
+// Plots the running out-of-bag accuracy against the number of trees built. Only touch from the EDT.
+public final class AccuracyCurvePanel extends JPanel {
+    private static final long serialVersionUID = 1L;
+    private static final int PADDING = 30;
+    private final ArrayList<Double> points = new ArrayList<>();
+    private int totalTrees = 1;
+
+    public AccuracyCurvePanel() {
+        setPreferredSize(new Dimension(600, 140));
+        setBackground(Color.WHITE);
+    }
+
+    public void reset(int totalTrees) {
+        this.totalTrees = Math.max(1, totalTrees);
+        points.clear();
+        repaint();
+    }
+
+    public void addPoint(double accuracy) {
+        points.add(accuracy);
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        int width = getWidth() - 2 * PADDING;
+        int height = getHeight() - 2 * PADDING;
+        int bottom = PADDING + height;
+
+        g2.setColor(Color.GRAY);
+        g2.drawLine(PADDING, PADDING, PADDING, bottom);
+        g2.drawLine(PADDING, bottom, PADDING + width, bottom);
+        g2.drawString("100%", 2, PADDING + 5);
+        g2.drawString("0%", 8, bottom + 5);
+        g2.drawString("OOB accuracy by trees built", PADDING + 5, PADDING - 10);
+
+        if (points.isEmpty()) return;
+        g2.setColor(new Color(30, 100, 200));
+        int prevX = -1, prevY = -1;
+        for (int i = 0; i < points.size(); i++) {
+            int x = PADDING + (int) ((i + 1) / (double) totalTrees * width);
+            int y = bottom - (int) (points.get(i) / 100.0 * height);
+            if (prevX >= 0) g2.drawLine(prevX, prevY, x, y);
+            prevX = x;
+            prevY = y;
+        }
+        g2.drawString(String.format("%.2f%%", points.get(points.size() - 1)), prevX - 40, prevY - 5);
+    }
+}
@@ -0,0 +1,167 @@
+package diabetes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+// Follows a CSV that an upstream system keeps appending to. Only bytes past the stored offset are read
+// and fed to RecordCollector.appendRows, so a refresh costs time proportional to the new data. If the
+// file shrinks (truncation), is replaced by a new file (rotation), or no longer holds the bytes last read just
+// before the offset (truncated and regrown past it between polls, as with copytruncate), the dataset is
+// reloaded from its header.
+public class CsvTailFollower implements AutoCloseable {
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final long FALLBACK_POLL_MILLIS = 1000; // Some platforms deliver watch events late or not at all
+    private static final int FINGERPRINT_BYTES = 64;
+
+    private final Path path;
+    private final RecordCollector collector;
+    private final IntConsumer onRowsAppended;
+    private final Runnable onReset;
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private long offset;
+    private byte[] fingerprint = new byte[0]; // The bytes just before offset, as last read
+    private Object fileKey;
+    private boolean headerRead;
+    private WatchService watcher;
+    private Thread thread;
+    private volatile boolean running;
+
+    // onRowsAppended receives the number of rows added by each refresh, e.g. to trigger RandomForest.refreshTrees
+    public CsvTailFollower(Path path, RecordCollector collector, IntConsumer onRowsAppended) {
+        this(path, collector, onRowsAppended, null);
+    }
+
+    // onReset runs when truncation or rotation replaces the rows, before the new rows are reported, e.g. to call
+    // RandomForest.discardOutOfBagRows
+    public CsvTailFollower(Path path, RecordCollector collector, IntConsumer onRowsAppended, Runnable onReset) {
+        this.path = path.toAbsolutePath();
+        this.collector = collector;
+        this.onRowsAppended = onRowsAppended;
+        this.onReset = onReset;
+    }
+
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    // Reads whatever has been appended since the last call and returns the number of rows added
+    public synchronized int poll() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return 0; // Between rotation steps; the replacement file is picked up on a later poll
+        }
+        Object key = attributes.fileKey();
+        boolean rotated = fileKey != null && key != null && !key.equals(fileKey);
+        List<String> lines = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (rotated || attributes.size() < offset || !Arrays.equals(readBefore(channel, offset), fingerprint)) {
+                offset = 0;
+                fingerprint = new byte[0];
+                partialLine.reset();
+                headerRead = false;
+                if (onReset != null) onReset.run();
+            }
+            fileKey = key;
+            if (attributes.size() == offset) return 0;
+
+            channel.position(offset);
+            ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+            int read;
+            while ((read = channel.read(buffer)) > 0) {
+                offset += read;
+                splitLines(buffer.array(), read, lines);
+                buffer.clear();
+            }
+            fingerprint = readBefore(channel, offset);
+        }
+        if (!headerRead) {
+            if (lines.isEmpty()) return 0;
+            collector.startDataset(lines.remove(0));
+            headerRead = true;
+        }
+        int added = collector.appendRows(lines);
+        if (added > 0 && onRowsAppended != null) {
+            onRowsAppended.accept(added);
+        }
+        return added;
+    }
+
+    private static byte[] readBefore(FileChannel channel, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(FINGERPRINT_BYTES, end));
+        long position = end - buffer.capacity();
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) break;
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    // Complete lines go to the output; a trailing fragment waits for the rest of its line.
+    // Splitting on the '\n' byte is safe for UTF-8 because it never occurs inside a multi-byte character.
+    private void splitLines(byte[] bytes, int length, List<String> lines) {
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != '\n') continue;
+            partialLine.write(bytes, start, i - start);
+            String line = partialLine.toString(StandardCharsets.UTF_8);
+            partialLine.reset();
+            if (line.endsWith("\r")) line = line.substring(0, line.length() - 1);
+            if (!line.isEmpty()) lines.add(line);
+            start = i + 1;
+        }
+        partialLine.write(bytes, start, length - start);
+    }
+
+    // Loads the current contents, then keeps refreshing on a background thread as the file changes
+    public synchronized void start() throws IOException {
+        if (running) return;
+        poll();
+        Path directory = path.getParent();
+        watcher = directory.getFileSystem().newWatchService();
+        directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        running = true;
+        thread = new Thread(this::watch, "csv-tail-follower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        while (running) {
+            try {
+                WatchKey key = watcher.poll(FALLBACK_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+                poll();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            } catch (IOException e) {
+                if (running) System.err.println("Error following file " + path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package diabetes;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Binary columnar copy of a parsed CSV, written next to the source as "<csv>.cache". Layout (little-endian):
+//   fixed header | schema | means, stdDevs, runningMeans, m2 (double[p] each) | counts (long[p])
+//   | raw columns (double[p][rows], NaN = missing) | normalized columns (double[p][rows]) | labels (byte[rows])
+// Each column is memory-mapped on open, so a warm load does no parsing and copies no values. The cache is
+// only trusted while the source CSV still has the size and modification time recorded in the header.
+public class DatasetCache {
+    private static final long MAGIC = 0x4450434143484531L; // "DPCACHE1"
+    private static final int VERSION = 1;
+    private static final int FIXED_HEADER_BYTES = 44;
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    private final FeatureSchema schema;
+    private final int rowCount;
+    private final double[] means;
+    private final double[] stdDevs;
+    private final long[] counts;
+    private final double[] runningMeans;
+    private final double[] m2;
+    private final DoubleBuffer[] rawColumns;
+    private final DoubleBuffer[] normalizedColumns;
+    private final ByteBuffer labels;
+
+    private DatasetCache(FeatureSchema schema, int rowCount, double[] means, double[] stdDevs, long[] counts,
+                         double[] runningMeans, double[] m2, DoubleBuffer[] rawColumns,
+                         DoubleBuffer[] normalizedColumns, ByteBuffer labels) {
+        this.schema = schema;
+        this.rowCount = rowCount;
+        this.means = means;
+        this.stdDevs = stdDevs;
+        this.counts = counts;
+        this.runningMeans = runningMeans;
+        this.m2 = m2;
+        this.rawColumns = rawColumns;
+        this.normalizedColumns = normalizedColumns;
+        this.labels = labels;
+    }
+
+    public static File cacheFileFor(String csvPath) {
+        return new File(csvPath + ".cache");
+    }
+
+    // Returns null when there is no cache or it no longer matches the source file
+    public static DatasetCache open(File cacheFile, File source) {
+        if (!cacheFile.isFile() || !source.isFile()) return null;
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (channel.read(header, 0) != FIXED_HEADER_BYTES) return null;
+            header.flip();
+            if (header.getLong() != MAGIC || header.getInt() != VERSION) return null;
+            if (header.getLong() != source.length() || header.getLong() != lastModified(source)) return null;
+            int rowCount = header.getInt();
+            int featureCount = header.getInt();
+            int labelColumn = header.getInt();
+            int schemaBytes = header.getInt();
+
+            ByteBuffer schemaBuffer = ByteBuffer.allocate(schemaBytes).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(schemaBuffer, FIXED_HEADER_BYTES);
+            schemaBuffer.flip();
+            List<String> names = new ArrayList<>(featureCount);
+            for (int i = 0; i < featureCount; i++) {
+                names.add(readString(schemaBuffer));
+            }
+            FeatureSchema schema = new FeatureSchema(names, readString(schemaBuffer), labelColumn);
+
+            long position = align(FIXED_HEADER_BYTES + schemaBytes);
+            ByteBuffer stats = map(channel, position, 5L * featureCount * Double.BYTES);
+            double[] means = readDoubles(stats, featureCount);
+            double[] stdDevs = readDoubles(stats, featureCount);
+            double[] runningMeans = readDoubles(stats, featureCount);
+            double[] m2 = readDoubles(stats, featureCount);
+            long[] counts = new long[featureCount];
+            stats.asLongBuffer().get(counts);
+            position += 5L * featureCount * Double.BYTES;
+
+            long columnBytes = (long) rowCount * Double.BYTES;
+            DoubleBuffer[] rawColumns = new DoubleBuffer[featureCount];
+            for (int j = 0; j < featureCount; j++, position += columnBytes) {
+                rawColumns[j] = map(channel, position, columnBytes).asDoubleBuffer();
+            }
+            DoubleBuffer[] normalizedColumns = new DoubleBuffer[featureCount];
+            for (int j = 0; j < featureCount; j++, position += columnBytes) {
+                normalizedColumns[j] = map(channel, position, columnBytes).asDoubleBuffer();
+            }
+            ByteBuffer labels = map(channel, position, rowCount);
+            return new DatasetCache(schema, rowCount, means, stdDevs, counts, runningMeans, m2, rawColumns, normalizedColumns, labels);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable cache " + cacheFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // sourceLength and sourceModified must be taken before the CSV was read, so rows appended while parsing
+    // invalidate the cache instead of being silently missing from it. Writes to a temporary file first so
+    // a crash never leaves a truncated cache that looks valid. The temporary file is removed if writing or the move
+    // fails, e.g. when the old cache is still mapped on Windows or the file system cannot move atomically.
+    public static void write(File cacheFile, long sourceLength, long sourceModified, FeatureSchema schema, List<double[]> rawRows, List<Boolean> labels,
+                             double[] means, double[] stdDevs, long[] counts, double[] runningMeans, double[] m2) throws IOException {
+        int featureCount = schema.getFeatureCount();
+        int rowCount = rawRows.size();
+        ByteBuffer schemaBuffer = encodeSchema(schema);
+        Path temp = Files.createTempFile(cacheFile.getAbsoluteFile().getParentFile().toPath(), cacheFile.getName(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            out.putLong(MAGIC).putInt(VERSION).putLong(sourceLength).putLong(sourceModified);
+            out.putInt(rowCount).putInt(featureCount).putInt(schema.getLabelColumn()).putInt(schemaBuffer.remaining());
+            out.put(schemaBuffer);
+            while (out.position() % Double.BYTES != 0) out.put((byte) 0);
+
+            for (double[] stat : new double[][]{means, stdDevs, runningMeans, m2}) {
+                for (double v : stat) out = putDouble(channel, out, v);
+            }
+            for (long count : counts) {
+                if (out.remaining() < Long.BYTES) out = flush(channel, out);
+                out.putLong(count);
+            }
+            for (int j = 0; j < featureCount; j++) {
+                for (double[] row : rawRows) out = putDouble(channel, out, row[j]);
+            }
+            for (int j = 0; j < featureCount; j++) {
+                for (double[] row : rawRows) {
+                    out = putDouble(channel, out, Double.isNaN(row[j]) ? 0.0 : (row[j] - means[j]) / stdDevs[j]);
+                }
+            }
+            for (boolean label : labels) {
+                if (!out.hasRemaining()) out = flush(channel, out);
+                out.put((byte) (label ? 1 : 0));
+            }
+            flush(channel, out);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    public FeatureSchema getSchema() {
+        return schema;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public double[] getMeans() {
+        return means;
+    }
+
+    public double[] getStdDevs() {
+        return stdDevs;
+    }
+
+    public long[] getCounts() {
+        return counts;
+    }
+
+    public double[] getRunningMeans() {
+        return runningMeans;
+    }
+
+    public double[] getM2() {
+        return m2;
+    }
+
+    public boolean getLabel(int row) {
+        return labels.get(row) != 0;
+    }
+
+    public double[] rawRow(int row) {
+        double[] values = new double[rawColumns.length];
+        for (int j = 0; j < values.length; j++) {
+            values[j] = rawColumns[j].get(row);
+        }
+        return values;
+    }
+
+    // Live view over the mapped normalized columns; nothing is copied
+    public List<Double> normalizedRow(int row) {
+        return new ColumnRowView(normalizedColumns, row);
+    }
+
+    static class ColumnRowView extends AbstractList<Double> implements RandomAccess {
+        private final DoubleBuffer[] columns;
+        private final int row;
+
+        ColumnRowView(DoubleBuffer[] columns, int row) {
+            this.columns = columns;
+            this.row = row;
+        }
+
+        @Override
+        public Double get(int index) {
+            return columns[index].get(row);
+        }
+
+        @Override
+        public int size() {
+            return columns.length;
+        }
+    }
+
+    private static ByteBuffer encodeSchema(FeatureSchema schema) {
+        List<byte[]> strings = new ArrayList<>();
+        for (String name : schema.getFeatureNames()) strings.add(name.getBytes(StandardCharsets.UTF_8));
+        strings.add(schema.getLabelName().getBytes(StandardCharsets.UTF_8));
+        int size = 0;
+        for (byte[] s : strings) size += Integer.BYTES + s.length;
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        for (byte[] s : strings) buffer.putInt(s.length).put(s);
+        return buffer.flip();
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        return values;
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer putDouble(FileChannel channel, ByteBuffer out, double value) throws IOException {
+        if (out.remaining() < Double.BYTES) out = flush(channel, out);
+        return out.putDouble(value);
+    }
+
+    private static ByteBuffer flush(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) channel.write(out);
+        return out.clear();
+    }
+
+    private static long align(long position) {
+        return (position + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+    }
+
+    public static long lastModified(File file) throws IOException {
+        return Files.getLastModifiedTime(file.toPath()).toMillis();
+    }
+}
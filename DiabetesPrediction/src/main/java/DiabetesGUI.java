@@ -5,16 +5,49 @@ import java.awt.event.ActionEvent;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import javax.swing.SwingWorker;
 
 public class DiabetesGUI {
+    // Valid input ranges for the Pima columns; features of other schemas are not range-checked
+    private static final Map<String, double[]> PIMA_RANGES = Map.of(
+            "Pregnancies", new double[]{0, 20},
+            "Glucose", new double[]{0, 200},
+            "BloodPressure", new double[]{0, 200},
+            "SkinThickness", new double[]{0, 100},
+            "Insulin", new double[]{0, 1000},
+            "BMI", new double[]{10, 50},
+            "DiabetesPedigreeFunction", new double[]{0, 2.5},
+            "Age", new double[]{0, 120});
+
     private RecordCollector collector = new RecordCollector();
     private RandomForest forest = new RandomForest(100);
     private boolean trained = false;
     private JTextArea resultArea;
     private int helpClicks = 0;
     private List<JTextField> inputFields = new ArrayList<>();
+    private JPanel inputPanel;
+    private JProgressBar progressBar;
+    private AccuracyCurvePanel accuracyCurve;
+    private SwingWorker<Double, Progress> trainingWorker;
+
+    // Snapshot published from the training thread and applied to the progress widgets on the EDT
+    private static class Progress {
+        final int rowsParsed;
+        final int treesBuilt;
+        final int totalTrees;
+        final double oobAccuracy;
+
+        Progress(int rowsParsed, int treesBuilt, int totalTrees, double oobAccuracy) {
+            this.rowsParsed = rowsParsed;
+            this.treesBuilt = treesBuilt;
+            this.totalTrees = totalTrees;
+            this.oobAccuracy = oobAccuracy;
+        }
+    }
 
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new DiabetesGUI().createAndShowGUI());
@@ -29,17 +62,8 @@ public class DiabetesGUI {
         panel.setLayout(new BorderLayout(10, 10));
         frame.add(panel);
 
-        JPanel inputPanel = new JPanel(new GridLayout(8, 2, 5, 5));
-        String[] labels = {"Pregnancies", "Glucose", "BloodPressure", "SkinThickness",
-                "Insulin", "BMI", "DiabetesPedigreeFunction", "Age"};
-
-        for (String label : labels) {
-            inputPanel.add(new JLabel(label));
-            JTextField field = new JTextField();
-            field.setName(label);
-            inputFields.add(field);
-            inputPanel.add(field);
-        }
+        inputPanel = new JPanel(new GridLayout(0, 2, 5, 5));
+        rebuildInputFields(collector.getFeatureNames());
 
         resultArea = new JTextArea(10, 50);
         resultArea.setLineWrap(true);
@@ -52,11 +76,19 @@ public class DiabetesGUI {
         JButton uploadBtn = new JButton("Upload CSV");
         JButton helpBtn = new JButton("Help");
         JButton clearBtn = new JButton("Clear");
+        JButton cancelBtn = new JButton("Cancel Training");
+        cancelBtn.setEnabled(false);
         buttonPanel.add(predictBtn);
         buttonPanel.add(uploadBtn);
+        buttonPanel.add(cancelBtn);
         buttonPanel.add(helpBtn);
         buttonPanel.add(clearBtn);
 
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressBar.setString("Idle");
+        accuracyCurve = new AccuracyCurvePanel();
+
         predictBtn.addActionListener((ActionEvent e) -> {
             if (!trained) {
                 resultArea.setText("Error: Model not trained. Please upload a CSV file first.");
@@ -64,13 +96,11 @@ public class DiabetesGUI {
             }
             try {
                 List<Double> features = new ArrayList<>();
-                double[] minValues = {0, 0, 0, 0, 0, 10, 0, 0};
-                double[] maxValues = {20, 200, 200, 100, 1000, 50, 2.5, 120};
-                for (int i = 0; i < inputFields.size(); i++) {
-                    JTextField field = inputFields.get(i);
+                for (JTextField field : inputFields) {
                     double value = Double.parseDouble(field.getText().trim());
-                    if (value < minValues[i] || value > maxValues[i]) {
-                        resultArea.setText("Error: " + labels[i] + " out of range (" + minValues[i] + " to " + maxValues[i] + ").");
+                    double[] range = PIMA_RANGES.get(field.getName());
+                    if (range != null && (value < range[0] || value > range[1])) {
+                        resultArea.setText("Error: " + field.getName() + " out of range (" + range[0] + " to " + range[1] + ").");
                         return;
                     }
                     features.add(value);
@@ -95,32 +125,126 @@ public class DiabetesGUI {
             if (returnVal == JFileChooser.APPROVE_OPTION) {
                 File file = chooser.getSelectedFile();
                 resultArea.setText("Loading and training model, please wait...");
-                SwingWorker<Void, Void> worker = new SwingWorker<>() {
+                uploadBtn.setEnabled(false);
+                cancelBtn.setEnabled(true);
+                progressBar.setIndeterminate(true);
+                progressBar.setString("Parsing rows...");
+                accuracyCurve.reset(1);
+                // Load and train into fresh instances so a cancelled or failed run keeps the current model
+                RecordCollector loadedCollector = new RecordCollector();
+                loadedCollector.setCacheEnabled(true);
+                RandomForest candidateForest = new RandomForest(100);
+                candidateForest.setMemoryBudget(Runtime.getRuntime().maxMemory() * 3 / 4);
+                trainingWorker = new SwingWorker<>() {
+                    private ModelWarmup.Report warmup;
+                    private String importance;
+
+                    @Override
+                    protected Double doInBackground() {
+                        SwingWorker<Double, Progress> worker = this;
+                        TrainingListener listener = new TrainingListener() {
+                            @Override
+                            public void rowsParsed(int rows) {
+                                publish(new Progress(rows, 0, 0, 0.0));
+                            }
+
+                            @Override
+                            public void treeBuilt(int treesBuilt, int totalTrees, double oobAccuracy) {
+                                publish(new Progress(-1, treesBuilt, totalTrees, oobAccuracy));
+                            }
+
+                            @Override
+                            public boolean isCancelled() {
+                                return worker.isCancelled();
+                            }
+                        };
+                        // A cancelled worker reaches done() at once, but upload stays disabled until this thread stops
+                        try {
+                            if (!loadedCollector.loadFromCSV(file.getAbsolutePath(), listener)) {
+                                return null;
+                            }
+                            // One copy of the records, planned once, serves training and the accuracy pass
+                            List<Record> records = loadedCollector.getRecords();
+                            MemoryEstimate plan = candidateForest.estimateMemory(loadedCollector, records);
+                            SwingUtilities.invokeLater(() -> resultArea.setText("Training model, please wait...\n" + plan));
+                            candidateForest.train(records, plan, new Random(), listener);
+                            double accuracy = candidateForest.computeAccuracy(records);
+                            // Score sampled inputs before reporting ready so the first real prediction is already compiled
+                            warmup = ModelWarmup.warmUp(candidateForest, loadedCollector, 2000, 42, listener);
+                            try {
+                                importance = candidateForest.computeFeatureImportance(loadedCollector.getFeatureNames(), 42, 10_000, listener).toString();
+                            } catch (IllegalStateException ex) {
+                                importance = ex.getMessage(); // Training fitted but importance does not: keep the model
+                            }
+                            return accuracy;
+                        } finally {
+                            SwingUtilities.invokeLater(() -> uploadBtn.setEnabled(true));
+                        }
+                    }
+
+                    @Override
+                    protected void process(List<Progress> updates) {
+                        for (Progress p : updates) {
+                            if (p.rowsParsed >= 0) {
+                                progressBar.setString("Parsed " + p.rowsParsed + " rows");
+                                continue;
+                            }
+                            if (p.treesBuilt == 1) {
+                                progressBar.setIndeterminate(false);
+                                progressBar.setMaximum(p.totalTrees);
+                                accuracyCurve.reset(p.totalTrees);
+                            }
+                            progressBar.setValue(p.treesBuilt);
+                            progressBar.setString("Trees built: " + p.treesBuilt + "/" + p.totalTrees);
+                            accuracyCurve.addPoint(p.oobAccuracy);
+                        }
+                    }
+
                     @Override
-                    protected Void doInBackground() {
+                    protected void done() {
+                        cancelBtn.setEnabled(false);
+                        progressBar.setIndeterminate(false);
                         try {
-                            if (collector.loadFromCSV(file.getAbsolutePath())) {
-                                forest.train(collector.getRecords(), new Random());
-                                trained = true;
-                                double accuracy = forest.computeAccuracy(collector.getRecords());
-                                resultArea.setText("Dataset loaded and model trained.\nAccuracy: " + String.format("%.2f", accuracy) + "%");
-                            } else {
+                            Double accuracy = get();
+                            if (accuracy == null) {
+                                progressBar.setString("Failed");
                                 resultArea.setText("Failed to load dataset.");
+                                return;
                             }
-                        } catch (Exception ex) {
-                            resultArea.setText("Error loading or training model: " + ex.getMessage());
+                            collector = loadedCollector;
+                            forest = candidateForest;
+                            trained = true;
+                            rebuildInputFields(collector.getFeatureNames());
+                            progressBar.setString("Done");
+                            resultArea.setText("Dataset loaded and model trained.\nAccuracy: " + String.format("%.2f", accuracy) + "%" +
+                                    "\nOut-of-bag accuracy: " + String.format("%.2f", forest.getOobAccuracy()) + "%" +
+                                    "\n" + forest.getMemoryEstimate() +
+                                    "\n" + warmup +
+                                    "\n\n" + importance);
+                        } catch (CancellationException ex) {
+                            progressBar.setString("Cancelled");
+                            resultArea.setText("Training cancelled." + (trained ? " The previous model is still in use." : ""));
+                        } catch (InterruptedException | ExecutionException ex) {
+                            progressBar.setString("Failed");
+                            Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                            resultArea.setText("Error loading or training model: " + cause.getMessage());
                         }
-                        return null;
                     }
                 };
-                worker.execute();
+                trainingWorker.execute();
+            }
+        });
+
+        cancelBtn.addActionListener((ActionEvent e) -> {
+            if (trainingWorker != null) {
+                trainingWorker.cancel(false); // Cooperative: the worker stops at the next row batch, tree or split
             }
         });
 
         helpBtn.addActionListener((ActionEvent e) -> {
             helpClicks++;
             JOptionPane.showMessageDialog(frame,
-                    "- Enter 8 health features within valid ranges.\n- Click 'Predict' to get result.\n- Use 'Upload CSV' to train new data.\n\nHelp clicked: " + helpClicks + " times.",
+                    "- Enter the " + inputFields.size() + " features of the loaded dataset (Pima features within valid ranges).\n- Click 'Predict' to get result.\n- Use 'Upload CSV' to train new data.\n\nHelp clicked: " + helpClicks + " times.",
                     "Help", JOptionPane.INFORMATION_MESSAGE);
         });
 
@@ -133,9 +257,32 @@ public class DiabetesGUI {
 
         panel.add(inputPanel, BorderLayout.NORTH);
         panel.add(buttonPanel, BorderLayout.CENTER);
-        panel.add(scrollPane, BorderLayout.SOUTH);
+        JPanel outputPanel = new JPanel(new BorderLayout(5, 5));
+        outputPanel.add(progressBar, BorderLayout.NORTH);
+        outputPanel.add(accuracyCurve, BorderLayout.CENTER);
+        outputPanel.add(scrollPane, BorderLayout.SOUTH);
+        panel.add(outputPanel, BorderLayout.SOUTH);
 
         frame.pack();
         frame.setVisible(true);
     }
+
+    // One labelled field per feature of the current schema, so wide datasets can be predicted on after upload
+    private void rebuildInputFields(List<String> featureNames) {
+        inputPanel.removeAll();
+        inputFields.clear();
+        for (String name : featureNames) {
+            inputPanel.add(new JLabel(name));
+            JTextField field = new JTextField();
+            field.setName(name);
+            inputFields.add(field);
+            inputPanel.add(field);
+        }
+        inputPanel.revalidate();
+        inputPanel.repaint();
+        Window window = SwingUtilities.getWindowAncestor(inputPanel);
+        if (window != null) {
+            window.pack();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package diabetes;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.stream.IntStream;
+
+// Global feature importance for a trained forest, computed two ways:
+//   permutation: drop in a tree's out-of-bag accuracy (percentage points) when one feature's values are shuffled
+//                among that tree's OOB rows, averaged over trees
+//   split gain:  Gini decrease credited to each feature while the trees were built, as a share of the total
+// Only the rows some tree will score (the union of the sampled OOB rows) are copied, once, into primitive
+// feature-major columns; a permutation is an int[] of source rows, so no Record or boxed value is copied per
+// permutation. (tree, feature) pairs run in parallel.
+public class FeatureImportance {
+    private final List<String> featureNames;
+    private final double[] permutation;
+    private final double[] permutationStdDev;
+    private final double[] splitGain;
+    private final int treesScored;
+
+    FeatureImportance(List<String> featureNames, double[] permutation, double[] permutationStdDev, double[] splitGain, int treesScored) {
+        this.featureNames = Collections.unmodifiableList(new ArrayList<>(featureNames));
+        this.permutation = permutation;
+        this.permutationStdDev = permutationStdDev;
+        this.splitGain = splitGain;
+        this.treesScored = treesScored;
+    }
+
+    // availableBytes bounds the working set (columns, row indices, results); 0 means unlimited. When the sampled
+    // rows would not fit, throws IllegalStateException before copying anything.
+    static FeatureImportance compute(List<Tree> trees, List<BitSet> inBagRows, List<Record> records, List<String> featureNames,
+                                     long seed, int maxOobRowsPerTree, long availableBytes, TrainingListener listener) {
+        int n = records.size();
+        int p = records.get(0).getFeatures().size();
+        if (featureNames.size() != p) {
+            throw new IllegalArgumentException("Expected " + p + " feature names but got " + featureNames.size());
+        }
+        if (maxOobRowsPerTree < 0) throw new IllegalArgumentException("maxOobRowsPerTree must not be negative");
+
+        int treeCount = Math.min(trees.size(), inBagRows.size());
+        int[][] oobRows = new int[treeCount][];
+        IntStream.range(0, treeCount).parallel().forEach(t -> {
+            checkCancelled(listener);
+            oobRows[t] = sampleOobRows(inBagRows.get(t), n, maxOobRowsPerTree, random(seed, t));
+        });
+
+        BitSet used = new BitSet(n);
+        long indexBytes = 0;
+        for (int[] rows : oobRows) {
+            for (int row : rows) used.set(row);
+            indexBytes += MemoryEstimate.align(MemoryEstimate.ARRAY_HEADER + 4L * rows.length);
+        }
+        int m = used.cardinality();
+        long needed = workingSetBytes(m, p, treeCount) + indexBytes;
+        if (availableBytes > 0 && needed > availableBytes) {
+            throw new IllegalStateException("Feature importance skipped: it needs " + MemoryEstimate.megabytes(needed)
+                    + " but only " + MemoryEstimate.megabytes(availableBytes) + " of the memory budget is left");
+        }
+
+        // Column position c holds training row usedRows[c]; the mapping keeps order, so remapped row lists stay sorted
+        int[] usedRows = used.stream().toArray();
+        double[][] columns = new double[p][m];
+        boolean[] labels = new boolean[m];
+        for (int c = 0; c < m; c++) {
+            Record record = records.get(usedRows[c]);
+            List<Double> features = record.getFeatures();
+            for (int j = 0; j < p; j++) {
+                columns[j][c] = features.get(j);
+            }
+            labels[c] = record.getLabel();
+        }
+        checkCancelled(listener);
+
+        int[] baselineCorrect = new int[treeCount];
+        IntStream.range(0, treeCount).parallel().forEach(t -> {
+            checkCancelled(listener);
+            int[] rows = oobRows[t];
+            for (int k = 0; k < rows.length; k++) rows[k] = Arrays.binarySearch(usedRows, rows[k]);
+            baselineCorrect[t] = countCorrect(trees.get(t), columns, labels, rows, -1, null);
+        });
+
+        double[][] drops = new double[treeCount][p];
+        IntStream.range(0, treeCount * p).parallel().forEach(task -> {
+            int t = task / p;
+            int feature = task % p;
+            int[] rows = oobRows[t];
+            if (rows.length == 0) return;
+            checkCancelled(listener);
+            int[] sources = rows.clone();
+            shuffle(sources, sources.length, random(seed, treeCount + task));
+            int correct = countCorrect(trees.get(t), columns, labels, rows, feature, sources);
+            drops[t][feature] = 100.0 * (baselineCorrect[t] - correct) / rows.length;
+        });
+
+        double[] mean = new double[p];
+        double[] stdDev = new double[p];
+        int scored = 0;
+        for (int t = 0; t < treeCount; t++) {
+            if (oobRows[t].length == 0) continue;
+            scored++;
+            for (int j = 0; j < p; j++) {
+                double delta = drops[t][j] - mean[j];
+                mean[j] += delta / scored;
+                stdDev[j] += delta * (drops[t][j] - mean[j]); // Welford; converted to a deviation below
+            }
+        }
+        for (int j = 0; j < p; j++) {
+            stdDev[j] = scored > 1 ? Math.sqrt(stdDev[j] / (scored - 1)) : 0.0;
+        }
+
+        double[] gain = new double[p];
+        double totalGain = 0.0;
+        for (int t = 0; t < treeCount; t++) {
+            double[] treeGains = trees.get(t).getSplitGains();
+            for (int j = 0; j < treeGains.length && j < p; j++) {
+                gain[j] += treeGains[j];
+                totalGain += treeGains[j];
+            }
+        }
+        for (int j = 0; j < p; j++) {
+            gain[j] = totalGain > 0 ? gain[j] / totalGain : 0.0;
+        }
+        return new FeatureImportance(featureNames, mean, stdDev, gain, scored);
+    }
+
+    // Columns and labels for the scored rows, the row remapping and the per-tree results
+    static long workingSetBytes(int rows, int features, int trees) {
+        return features * MemoryEstimate.align(MemoryEstimate.ARRAY_HEADER + 8L * rows)
+                + MemoryEstimate.align(MemoryEstimate.ARRAY_HEADER + rows)
+                + MemoryEstimate.align(MemoryEstimate.ARRAY_HEADER + 4L * rows)
+                + (long) trees * MemoryEstimate.align(MemoryEstimate.ARRAY_HEADER + 8L * features);
+    }
+
+    private static void checkCancelled(TrainingListener listener) {
+        if (listener.isCancelled()) {
+            throw new CancellationException("Feature importance cancelled");
+        }
+    }
+
+    // Rows outside the tree's bootstrap, optionally reduced to a random subset; sorted so column reads stay sequential.
+    // A null set means the tree's rows were replaced since it was built, so it has no usable OOB rows.
+    private static int[] sampleOobRows(BitSet inBag, int n, int maxRows, SplittableRandom random) {
+        if (inBag == null) return new int[0];
+        // Only bits below n count: a tree kept from a larger dataset may have in-bag rows past the current end
+        int inBagBelowN = inBag.get(0, n).cardinality();
+        int[] rows = new int[n - inBagBelowN];
+        int k = 0;
+        for (int i = inBag.nextClearBit(0); i < n; i = inBag.nextClearBit(i + 1)) {
+            rows[k++] = i;
+        }
+        if (maxRows > 0 && rows.length > maxRows) {
+            shuffle(rows, maxRows, random);
+            rows = Arrays.copyOf(rows, maxRows);
+            Arrays.sort(rows);
+        }
+        return rows;
+    }
+
+    private static int countCorrect(Tree tree, double[][] columns, boolean[] labels, int[] rows, int feature, int[] sources) {
+        int correct = 0;
+        for (int k = 0; k < rows.length; k++) {
+            int row = rows[k];
+            if (tree.predict(columns, row, feature, sources == null ? row : sources[k]) == labels[row]) correct++;
+        }
+        return correct;
+    }
+
+    // Fisher-Yates over the first count positions
+    private static void shuffle(int[] values, int count, SplittableRandom random) {
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(values.length - i);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    // Independent stream per task, so results do not depend on how the tasks were scheduled
+    private static SplittableRandom random(long seed, int task) {
+        return new SplittableRandom(seed + 0x9E3779B97F4A7C15L * (task + 1));
+    }
+
+    public List<String> getFeatureNames() {
+        return featureNames;
+    }
+
+    public double[] getPermutationImportance() {
+        return permutation.clone();
+    }
+
+    public double[] getPermutationStdDev() {
+        return permutationStdDev.clone();
+    }
+
+    public double[] getSplitGainImportance() {
+        return splitGain.clone();
+    }
+
+    public int getTreesScored() {
+        return treesScored;
+    }
+
+    // Feature indices from most to least important by permutation importance
+    public List<Integer> getRanking() {
+        List<Integer> ranking = new ArrayList<>();
+        for (int j = 0; j < permutation.length; j++) ranking.add(j);
+        ranking.sort((a, b) -> Double.compare(permutation[b], permutation[a]));
+        return ranking;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Feature importance (OOB accuracy drop when shuffled, share of split gain):\n");
+        for (int j : getRanking()) {
+            sb.append("- ").append(featureNames.get(j)).append(": ")
+                    .append(String.format("%.2f +/- %.2f pts, %.1f%%", permutation[j], permutationStdDev[j], 100.0 * splitGain[j]))
+                    .append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package diabetes;
+
+import java.util.*;
+
+public class FeatureSchema {
+    private static final String DEFAULT_LABEL = "Outcome";
+
+    private final List<String> featureNames;
+    private final String labelName;
+    private final int labelColumn;
+
+    public FeatureSchema(List<String> featureNames, String labelName, int labelColumn) {
+        if (featureNames.isEmpty()) throw new IllegalArgumentException("Schema must have at least one feature");
+        if (labelColumn < 0 || labelColumn > featureNames.size()) {
+            throw new IllegalArgumentException("Label column out of range: " + labelColumn);
+        }
+        this.featureNames = Collections.unmodifiableList(new ArrayList<>(featureNames));
+        this.labelName = labelName;
+        this.labelColumn = labelColumn;
+    }
+
+    // The Pima Indians layout the application was originally written against
+    public static FeatureSchema diabetes() {
+        return new FeatureSchema(Arrays.asList(
+                "Pregnancies", "Glucose", "BloodPressure", "SkinThickness",
+                "Insulin", "BMI", "DiabetesPedigreeFunction", "Age"
+        ), DEFAULT_LABEL, 8);
+    }
+
+    // Uses the "Outcome" column as the label when present, otherwise the last column
+    public static FeatureSchema fromHeader(String header) {
+        if (header.startsWith("\uFEFF")) header = header.substring(1); // Strip UTF-8 BOM
+        String[] tokens = header.split(",", -1);
+        if (tokens.length < 2) {
+            throw new IllegalArgumentException("Header must have at least one feature and a label column");
+        }
+        int labelColumn = tokens.length - 1;
+        for (int i = 0; i < tokens.length; i++) {
+            if (DEFAULT_LABEL.equalsIgnoreCase(tokens[i].trim())) {
+                labelColumn = i;
+                break;
+            }
+        }
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < tokens.length; i++) {
+            if (i == labelColumn) continue;
+            String name = tokens[i].trim();
+            names.add(name.isEmpty() ? "Feature" + (names.size() + 1) : name);
+        }
+        return new FeatureSchema(names, tokens[labelColumn].trim(), labelColumn);
+    }
+
+    public List<String> getFeatureNames() {
+        return featureNames;
+    }
+
+    public int getFeatureCount() {
+        return featureNames.size();
+    }
+
+    public String getLabelName() {
+        return labelName;
+    }
+
+    public int getLabelColumn() {
+        return labelColumn;
+    }
+
+    public int getColumnCount() {
+        return featureNames.size() + 1;
+    }
+
+    // Maps a CSV column to its feature index, or -1 for the label column
+    public int featureIndexOf(int column) {
+        if (column == labelColumn) return -1;
+        return column < labelColumn ? column : column - 1;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FeatureSchema)) return false;
+        FeatureSchema other = (FeatureSchema) o;
+        return labelColumn == other.labelColumn && featureNames.equals(other.featureNames)
+                && Objects.equals(labelName, other.labelName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(featureNames, labelName, labelColumn);
+    }
+}
@@ -0,0 +1,204 @@
+package diabetes;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Open-loop load generator for the full predict path: normalizeInput -> predict -> analyzePrediction.
+// Requests follow a fixed schedule at the target rate and latency is measured from each request's
+// intended start time, so a stalled model is charged for the requests that queued up behind it
+// (coordinated-omission correction). Model, dataset and inputs all derive from the seed; inputs are sampled
+// from the loaded dataset's column statistics, so --csv works with any schema.
+//
+// Run with: mvn -P load-test verify -Dload.args="--rate=2000 --duration=30 --threads=8 --virtual"
+//       or: java -cp target/classes diabetes.LoadTestHarness --rate=2000 --duration=30
+public class LoadTestHarness {
+    private static final int INPUT_POOL_SIZE = 4096;
+    private static final long SPIN_THRESHOLD_NANOS = 50_000;
+
+    private final RecordCollector collector;
+    private final RandomForest forest;
+    private final long seed;
+    private final LongAdder sink = new LongAdder(); // Keeps the JIT from discarding the predict path
+
+    public static class Config {
+        double rate = 1000;
+        int durationSeconds = 10;
+        int warmupSeconds = 3;
+        int threads = 4;
+        boolean virtualThreads = false;
+        long seed = 42;
+        int rows = 2000;
+        int trees = 100;
+        String csv;
+
+        static Config parse(String[] args) {
+            Config config = new Config();
+            for (String arg : args) {
+                String[] parts = arg.replaceFirst("^--", "").split("=", 2);
+                String value = parts.length > 1 ? parts[1] : "true";
+                switch (parts[0]) {
+                    case "rate" -> config.rate = Double.parseDouble(value);
+                    case "duration" -> config.durationSeconds = Integer.parseInt(value);
+                    case "warmup" -> config.warmupSeconds = Integer.parseInt(value);
+                    case "threads" -> config.threads = Integer.parseInt(value);
+                    case "virtual" -> config.virtualThreads = Boolean.parseBoolean(value);
+                    case "seed" -> config.seed = Long.parseLong(value);
+                    case "rows" -> config.rows = Integer.parseInt(value);
+                    case "trees" -> config.trees = Integer.parseInt(value);
+                    case "csv" -> config.csv = value;
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            return config;
+        }
+    }
+
+    public static class Report {
+        private final long requests;
+        private final double seconds;
+        private final LatencyHistogram histogram;
+        private final long allocatedBytes;
+
+        Report(long requests, double seconds, LatencyHistogram histogram, long allocatedBytes) {
+            this.requests = requests;
+            this.seconds = seconds;
+            this.histogram = histogram;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public long getRequests() {
+            return requests;
+        }
+
+        public double getThroughput() {
+            return seconds > 0 ? requests / seconds : 0.0;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+
+        // Bytes allocated per request across all threads, or -1 if the JVM cannot measure it
+        public double getAllocatedBytesPerRequest() {
+            return allocatedBytes < 0 || requests == 0 ? -1 : (double) allocatedBytes / requests;
+        }
+
+        @Override
+        public String toString() {
+            int cores = Runtime.getRuntime().availableProcessors();
+            double perRequest = getAllocatedBytesPerRequest();
+            return String.format("Requests: %d in %.2f s%n", requests, seconds) +
+                    String.format("Throughput: %.1f req/s (%.1f req/s per core, %d cores)%n", getThroughput(), getThroughput() / cores, cores) +
+                    String.format("Latency p50: %s  p99: %s  p99.9: %s  max: %s%n",
+                            micros(histogram.getValueAtPercentile(50)), micros(histogram.getValueAtPercentile(99)),
+                            micros(histogram.getValueAtPercentile(99.9)), micros(histogram.getMax())) +
+                    "Allocation: " + (perRequest < 0 ? "n/a" : String.format("%.0f bytes/request", perRequest));
+        }
+
+        private static String micros(long nanos) {
+            return String.format("%.1f us", nanos / 1000.0);
+        }
+    }
+
+    public LoadTestHarness(RecordCollector collector, RandomForest forest, long seed) {
+        this.collector = collector;
+        this.forest = forest;
+        this.seed = seed;
+    }
+
+    public Report run(double rate, Duration duration, int threads, boolean virtualThreads) throws InterruptedException {
+        if (rate <= 0 || threads < 1) throw new IllegalArgumentException("Rate and thread count must be positive");
+        List<List<Double>> inputs = collector.sampleInputs(INPUT_POOL_SIZE, seed);
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        LatencyHistogram[] histograms = new LatencyHistogram[threads];
+        Thread[] workers = new Thread[threads];
+        long allocatedBefore = totalAllocatedBytes();
+        long start = System.nanoTime() + 10_000_000L; // Give every worker time to start before the first slot
+        long end = start + duration.toNanos();
+        for (int t = 0; t < threads; t++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histograms[t] = histogram;
+            int offset = t;
+            Runnable task = () -> drive(inputs, offset, threads, start, end, intervalNanos, histogram);
+            workers[t] = virtualThreads ? Thread.ofVirtual().unstarted(task) : Thread.ofPlatform().name("load-" + t).unstarted(task);
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long allocatedAfter = totalAllocatedBytes();
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) {
+            merged.merge(histogram);
+        }
+        long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+        return new Report(merged.getCount(), seconds, merged, allocated);
+    }
+
+    // Thread t owns the global schedule slots t, t + threads, t + 2 * threads, ...
+    private void drive(List<List<Double>> inputs, int offset, int threads, long start, long end, long intervalNanos, LatencyHistogram histogram) {
+        long local = 0;
+        for (long slot = offset; ; slot += threads) {
+            long intended = start + slot * intervalNanos;
+            if (intended >= end) break;
+            waitUntil(intended);
+            List<Double> input = inputs.get((int) (slot % inputs.size()));
+            List<Double> normalized = collector.normalizeInput(input);
+            boolean prediction = forest.predict(normalized);
+            local += forest.analyzePrediction(normalized, prediction, collector).length();
+            histogram.record(System.nanoTime() - intended);
+        }
+        sink.add(local);
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private static long totalAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Config config = Config.parse(args);
+        String path = config.csv;
+        if (path == null) {
+            File file = File.createTempFile("diabetes-load", ".csv");
+            file.deleteOnExit();
+            SyntheticData.writeCsv(file, config.rows, config.seed);
+            path = file.getAbsolutePath();
+        }
+        RecordCollector collector = new RecordCollector();
+        if (!collector.loadFromCSV(path)) {
+            System.err.println("Failed to load dataset: " + path);
+            System.exit(1);
+        }
+        RandomForest forest = new RandomForest(config.trees);
+        forest.train(collector.getRecords(), new Random(config.seed));
+
+        LoadTestHarness harness = new LoadTestHarness(collector, forest, config.seed);
+        System.out.printf("Target rate: %.0f req/s, %d %s threads, seed %d%n", config.rate, config.threads,
+                config.virtualThreads ? "virtual" : "platform", config.seed);
+        if (config.warmupSeconds > 0) {
+            harness.run(config.rate, Duration.ofSeconds(config.warmupSeconds), config.threads, config.virtualThreads);
+        }
+        System.out.println(harness.run(config.rate, Duration.ofSeconds(config.durationSeconds), config.threads, config.virtualThreads));
+    }
+}
@@ -0,0 +1,181 @@
+package diabetes;
+
+import java.util.*;
+
+// Heap estimate for training: the dataset, the per-tree bootstrap working set and the forest itself.
+// Object sizes assume a 64-bit JVM with compressed oops (12-byte headers, 4-byte references, 8-byte alignment).
+// plan() also decides how training degrades when a memory budget would otherwise be exceeded.
+public class MemoryEstimate {
+    static final int REFERENCE = 4;
+    static final int ARRAY_HEADER = 16;
+    static final int RECORD_BYTES = 24;
+    static final int NODE_BYTES = 40;
+    static final int TREE_BYTES = 16;
+    private static final int LIST_BYTES = 24;
+    private static final int BOXED_DOUBLE = 16;
+    private static final int SPARSE_LIST_BYTES = 32;
+    private static final int VIEW_BYTES = 24;
+    private static final int BITSET_BYTES = 24;
+    private static final double MIN_SAMPLE_FRACTION = 0.1;
+
+    private final long datasetBytes;
+    private final long bootstrapBytes;
+    private final long forestBytes;
+    private final int treeCount;
+    private final int sampleSize;
+    private final List<String> adjustments;
+
+    MemoryEstimate(long datasetBytes, long bootstrapBytes, long forestBytes, int treeCount, int sampleSize, List<String> adjustments) {
+        this.datasetBytes = datasetBytes;
+        this.bootstrapBytes = bootstrapBytes;
+        this.forestBytes = forestBytes;
+        this.treeCount = treeCount;
+        this.sampleSize = sampleSize;
+        this.adjustments = Collections.unmodifiableList(new ArrayList<>(adjustments));
+    }
+
+    // Works out tree count and bootstrap size for a training run. A budget of 0 means unlimited. Throws
+    // IllegalStateException up front if even the smallest configuration cannot fit, rather than running out mid-way.
+    public static MemoryEstimate plan(List<Record> records, int numTrees, long budget) {
+        return plan(records, datasetBytes(records), numTrees, budget);
+    }
+
+    // datasetBytes is everything held for the data during training, e.g. RecordCollector.estimateMemoryBytes()
+    // plus the records list handed to the forest, when that is more than the records alone
+    public static MemoryEstimate plan(List<Record> records, long datasetBytes, int numTrees, long budget) {
+        int n = records.size();
+        long dataset = datasetBytes;
+        int sampleSize = n;
+        int trees = numTrees;
+        List<String> adjustments = new ArrayList<>();
+        if (budget > 0 && n > 0) {
+            long remaining = budget - dataset;
+            int minSample = Math.max(1, (int) (n * MIN_SAMPLE_FRACTION));
+            while (sampleSize > minSample && bootstrapBytes(n, sampleSize) + perTreeBytes(n, sampleSize) > remaining) {
+                sampleSize = Math.max(minSample, sampleSize / 2);
+            }
+            long perTree = perTreeBytes(n, sampleSize);
+            long available = remaining - bootstrapBytes(n, sampleSize);
+            if (available < perTree) {
+                throw new IllegalStateException("Training needs at least " + megabytes(dataset + bootstrapBytes(n, sampleSize) + perTree)
+                        + " but the memory budget is " + megabytes(budget));
+            }
+            if (sampleSize < n) {
+                adjustments.add(String.format("Bootstrap sample reduced to %.0f%% of rows", 100.0 * sampleSize / n));
+            }
+            if (available / perTree < trees) {
+                trees = (int) (available / perTree);
+                adjustments.add("Tree count capped at " + trees + " of " + numTrees);
+            }
+        }
+        return new MemoryEstimate(dataset, bootstrapBytes(n, sampleSize), (long) trees * perTreeBytes(n, sampleSize), trees, sampleSize, adjustments);
+    }
+
+    // Same estimate with the forest size replaced by what was actually built
+    MemoryEstimate withForest(long forestBytes, int treeCount, String adjustment) {
+        List<String> all = new ArrayList<>(adjustments);
+        if (adjustment != null) all.add(adjustment);
+        return new MemoryEstimate(datasetBytes, bootstrapBytes, forestBytes, treeCount, sampleSize, all);
+    }
+
+    public static long datasetBytes(List<Record> records) {
+        long bytes = referenceArrayBytes(records.size());
+        for (Record record : records) {
+            bytes += RECORD_BYTES + featureBytes(record.getFeatures());
+        }
+        return bytes;
+    }
+
+    static long referenceArrayBytes(int length) {
+        return align(ARRAY_HEADER + (long) REFERENCE * length);
+    }
+
+    static long featureBytes(List<Double> features) {
+        if (features instanceof SparseFeatureList sparse) {
+            int k = sparse.getStoredCount();
+            return SPARSE_LIST_BYTES + align(ARRAY_HEADER + 4L * k) + align(ARRAY_HEADER + 8L * k);
+        }
+        if (features instanceof DatasetCache.ColumnRowView) {
+            return VIEW_BYTES; // Values live in the memory-mapped cache, off-heap
+        }
+        int p = features.size();
+        return LIST_BYTES + align(ARRAY_HEADER + (long) REFERENCE * p) + (long) BOXED_DOUBLE * p;
+    }
+
+    // One tree at a time is built: the sample list, the partitions held along the recursion path
+    // and the split scratch arrays, plus the in-bag mask and out-of-bag tallies over all rows
+    static long bootstrapBytes(int rows, int sampleSize) {
+        long sample = align(ARRAY_HEADER + (long) REFERENCE * sampleSize);
+        long partitions = (long) (Tree.MAX_DEPTH + 1) * sample;
+        long scratch = 2 * align(ARRAY_HEADER + 8L * sampleSize);
+        return sample + partitions + scratch + align(ARRAY_HEADER + rows) + 2 * align(ARRAY_HEADER + 4L * rows);
+    }
+
+    // Each depth level holds at most one internal node per record, and every internal node has two children
+    static long worstCaseTreeBytes(int sampleSize) {
+        long internal = Math.min((1L << Tree.MAX_DEPTH) - 1, (long) Tree.MAX_DEPTH * Math.max(1, sampleSize));
+        return TREE_BYTES + (2 * internal + 1) * NODE_BYTES;
+    }
+
+    // The forest keeps each tree's in-bag rows as a bitset so importance can be computed on out-of-bag rows later
+    static long inBagBytes(int rows) {
+        return bitSetBytes(rows);
+    }
+
+    static long bitSetBytes(int bits) {
+        return BITSET_BYTES + align(ARRAY_HEADER + 8L * ((bits + 63) / 64));
+    }
+
+    static long perTreeBytes(int rows, int sampleSize) {
+        return worstCaseTreeBytes(sampleSize) + inBagBytes(rows);
+    }
+
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    public long getDatasetBytes() {
+        return datasetBytes;
+    }
+
+    public long getBootstrapBytes() {
+        return bootstrapBytes;
+    }
+
+    public long getForestBytes() {
+        return forestBytes;
+    }
+
+    public long getTotalBytes() {
+        return datasetBytes + bootstrapBytes + forestBytes;
+    }
+
+    public int getTreeCount() {
+        return treeCount;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    public List<String> getAdjustments() {
+        return adjustments;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Memory: dataset ").append(megabytes(datasetBytes))
+                .append(", bootstrap ").append(megabytes(bootstrapBytes))
+                .append(", forest ").append(megabytes(forestBytes))
+                .append(" (").append(treeCount).append(" trees), total ").append(megabytes(getTotalBytes()));
+        for (String adjustment : adjustments) {
+            sb.append("\n- ").append(adjustment);
+        }
+        return sb.toString();
+    }
+
+    static String megabytes(long bytes) {
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
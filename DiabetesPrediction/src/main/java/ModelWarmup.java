@@ -0,0 +1,106 @@
+package diabetes;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+// Scores seeded inputs drawn from the loaded dataset's statistics through normalizeInput and predict, so the
+// JIT has compiled the hot path before real requests arrive, and measures how long that took. The cost of a
+// prediction does not depend on the dataset size, and the run is also capped in time.
+public class ModelWarmup {
+    // A prediction counts as fast once it is within this factor of the steady-state median
+    private static final double FAST_FACTOR = 2.0;
+    private static final long MAX_WARMUP_NANOS = 2_000_000_000L;
+
+    private ModelWarmup() {
+    }
+
+    public static class Report {
+        private final int iterations;
+        private final long firstLatencyNanos;
+        private final long steadyLatencyNanos;
+        private final int firstFastIteration;
+        private final long firstFastMillis;
+        private final long warmupMillis;
+
+        Report(int iterations, long firstLatencyNanos, long steadyLatencyNanos, int firstFastIteration,
+               long firstFastMillis, long warmupMillis) {
+            this.iterations = iterations;
+            this.firstLatencyNanos = firstLatencyNanos;
+            this.steadyLatencyNanos = steadyLatencyNanos;
+            this.firstFastIteration = firstFastIteration;
+            this.firstFastMillis = firstFastMillis;
+            this.warmupMillis = warmupMillis;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+
+        public long getFirstLatencyNanos() {
+            return firstLatencyNanos;
+        }
+
+        public long getSteadyLatencyNanos() {
+            return steadyLatencyNanos;
+        }
+
+        public int getFirstFastIteration() {
+            return firstFastIteration;
+        }
+
+        // Time from the start of the warm-up until the first fast prediction completed
+        public long getFirstFastMillis() {
+            return firstFastMillis;
+        }
+
+        public long getWarmupMillis() {
+            return warmupMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Warm-up: %d predictions in %d ms; first %.1f us, steady %.1f us; " +
+                            "first fast prediction #%d after %d ms",
+                    iterations, warmupMillis, firstLatencyNanos / 1000.0, steadyLatencyNanos / 1000.0,
+                    firstFastIteration + 1, firstFastMillis);
+        }
+    }
+
+    public static Report warmUp(RandomForest forest, RecordCollector collector, int iterations, long seed) {
+        return warmUp(forest, collector, iterations, seed, TrainingListener.NONE);
+    }
+
+    // listener.isCancelled() is polled between predictions; cancelling throws CancellationException
+    public static Report warmUp(RandomForest forest, RecordCollector collector, int iterations, long seed, TrainingListener listener) {
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be at least 1");
+        List<List<Double>> inputs = collector.sampleInputs(Math.min(iterations, 1024), seed);
+        long[] latencies = new long[iterations];
+        long[] finishedAt = new long[iterations];
+        long start = System.nanoTime();
+        int completed = 0;
+        while (completed < iterations && (completed == 0 || System.nanoTime() - start < MAX_WARMUP_NANOS)) {
+            if (listener.isCancelled()) {
+                throw new CancellationException("Warm-up cancelled");
+            }
+            long before = System.nanoTime();
+            forest.predict(collector.normalizeInput(inputs.get(completed % inputs.size())));
+            finishedAt[completed] = System.nanoTime();
+            latencies[completed] = finishedAt[completed] - before;
+            completed++;
+        }
+
+        long[] tail = Arrays.copyOfRange(latencies, completed - Math.max(1, completed / 4), completed);
+        Arrays.sort(tail);
+        long steady = tail[tail.length / 2];
+        int firstFast = completed - 1;
+        for (int i = 0; i < completed; i++) {
+            if (latencies[i] <= steady * FAST_FACTOR) {
+                firstFast = i;
+                break;
+            }
+        }
+        long firstFastMillis = (finishedAt[firstFast] - start) / 1_000_000;
+        return new Report(completed, latencies[0], steady, firstFast, firstFastMillis, (System.nanoTime() - start) / 1_000_000);
+    }
+}
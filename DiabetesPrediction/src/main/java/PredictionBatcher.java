@@ -0,0 +1,157 @@
+package diabetes;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Coalesces concurrent single predictions into micro-batches scored with RandomForest.predictBatch.
+// Inputs must already be normalized. When the bounded queue is full, new requests are shed and their
+// futures fail with RejectedExecutionException instead of blocking the caller. Inputs of the wrong width fail
+// at submit with IllegalArgumentException, and one bad request never fails the others batched with it.
+public class PredictionBatcher implements AutoCloseable {
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final RandomForest forest;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingPrediction> queue;
+    private final Thread worker;
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong predictions = new AtomicLong();
+    private final Object stateLock = new Object(); // Makes the closed check and the enqueue atomic with close()
+    private volatile boolean running = true;
+
+    private static class PendingPrediction {
+        final List<Double> features;
+        final CompletableFuture<PredictionResult> future;
+
+        PendingPrediction(List<Double> features, CompletableFuture<PredictionResult> future) {
+            this.features = features;
+            this.future = future;
+        }
+    }
+
+    public PredictionBatcher(RandomForest forest, int maxBatchSize, Duration maxWait, int queueCapacity) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        if (maxWait.isNegative()) throw new IllegalArgumentException("maxWait must not be negative");
+        this.forest = forest;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = new Thread(this::run, "prediction-batcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public CompletableFuture<PredictionResult> submit(List<Double> features) {
+        CompletableFuture<PredictionResult> future = new CompletableFuture<>();
+        int featureCount = forest.getFeatureCount();
+        if (featureCount > 0 && features.size() != featureCount) {
+            future.completeExceptionally(new IllegalArgumentException("Input must have " + featureCount + " features"));
+            return future;
+        }
+        boolean accepted;
+        synchronized (stateLock) {
+            accepted = running && queue.offer(new PendingPrediction(features, future));
+        }
+        if (!accepted) {
+            future.completeExceptionally(new RejectedExecutionException(running ? "Prediction queue is full" : "Prediction batcher is closed"));
+        }
+        return future;
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public long getPredictionCount() {
+        return predictions.get();
+    }
+
+    private void run() {
+        List<PendingPrediction> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPrediction first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stop();
+            }
+            if (!batch.isEmpty()) {
+                evaluate(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // A lone request with nothing queued behind it is scored immediately, so low load pays no batching delay.
+    // Once other requests are waiting, keep collecting until the batch is full or maxWait has passed.
+    private void collectBatch(List<PendingPrediction> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        if (batch.size() == 1) return;
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) return;
+            PendingPrediction next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) return;
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void evaluate(List<PendingPrediction> batch) {
+        List<List<Double>> inputs = new ArrayList<>(batch.size());
+        for (PendingPrediction pending : batch) {
+            inputs.add(pending.features);
+        }
+        batches.incrementAndGet();
+        predictions.addAndGet(batch.size());
+        try {
+            List<PredictionResult> results = forest.predictBatch(inputs);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(results.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            // Score each request on its own so the failure stays with the request that caused it
+            for (PendingPrediction pending : batch) {
+                try {
+                    pending.future.complete(forest.predictBatch(List.of(pending.features)).get(0));
+                } catch (RuntimeException single) {
+                    pending.future.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    // Once this returns, no submit can enqueue any more, so the worker's final drain sees every request
+    private void stop() {
+        synchronized (stateLock) {
+            running = false;
+        }
+    }
+
+    // Scores everything already queued, then stops the worker
+    @Override
+    public void close() {
+        stop();
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        PendingPrediction leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.future.completeExceptionally(new RejectedExecutionException("Prediction batcher is closed"));
+        }
+    }
+}
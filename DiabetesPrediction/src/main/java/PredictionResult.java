@@ -0,0 +1,25 @@
+package diabetes;
+
+public class PredictionResult {
+    private final boolean diabetic;
+    private final int votes;
+    private final int treeCount;
+
+    public PredictionResult(boolean diabetic, int votes, int treeCount) {
+        this.diabetic = diabetic;
+        this.votes = votes;
+        this.treeCount = treeCount;
+    }
+
+    public boolean isDiabetic() {
+        return diabetic;
+    }
+
+    public int getVotes() {
+        return votes;
+    }
+
+    public int getTreeCount() {
+        return treeCount;
+    }
+}
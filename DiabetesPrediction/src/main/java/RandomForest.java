@@ -1,29 +1,235 @@
 package diabetes;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 public class RandomForest {
     private List<Tree> trees;
+    private List<BitSet> inBagRows; // Per tree, the training rows its bootstrap drew (null once those rows were replaced)
     private int numTrees;
+    private final int mtry;
     private List<Record> trainingData;
+    private volatile int featureCount; // Width of the rows the current trees were built on
+    private double oobAccuracy;
+    private long memoryBudget;
+    private MemoryEstimate memoryEstimate;
+    private double sampleFraction = 1.0; // Bootstrap size relative to the rows, from the last plan; reused by refreshTrees
 
     public RandomForest(int numTrees) {
+        this(numTrees, 0);
+    }
+
+    // mtry is the number of candidate features per split; 0 uses the square root of the feature count
+    public RandomForest(int numTrees, int mtry) {
         this.numTrees = numTrees;
+        this.mtry = mtry;
         this.trees = new ArrayList<>();
+        this.inBagRows = new ArrayList<>();
+    }
+
+    // Caps the estimated training footprint (dataset, bootstrap and forest) in bytes; 0 means unlimited
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    // What training these records would need, and how the budget would degrade it, before anything is built
+    public MemoryEstimate estimateMemory(List<Record> records) {
+        return MemoryEstimate.plan(records, numTrees, memoryBudget);
+    }
+
+    // Same, but counting everything the collector holds (raw rows during incremental ingestion, on-heap
+    // views of a cached dataset) plus records, the list from collector.getRecords() that will be trained on.
+    // Pass the result and that same list to train(records, plan, ...) so the data is copied and walked once.
+    public MemoryEstimate estimateMemory(RecordCollector collector, List<Record> records) {
+        long datasetBytes = collector.estimateMemoryBytes() + MemoryEstimate.referenceArrayBytes(records.size());
+        return MemoryEstimate.plan(records, datasetBytes, numTrees, memoryBudget);
+    }
+
+    // Estimate from the last training run, with the forest size measured from the trees actually built
+    public MemoryEstimate getMemoryEstimate() {
+        return memoryEstimate;
     }
 
     public void train(List<Record> records, Random rand) {
+        train(records, rand, TrainingListener.NONE);
+    }
+
+    public void train(List<Record> records, Random rand, TrainingListener listener) {
+        train(records, MemoryEstimate.plan(records, numTrees, memoryBudget), rand, listener);
+    }
+
+    // Trains with a plan already made for these records, e.g. by estimateMemory(collector, records).
+    // Builds into a fresh list so a cancelled run leaves the previously trained model in place.
+    public void train(List<Record> records, MemoryEstimate plan, Random rand, TrainingListener listener) {
+        int treesToBuild = plan.getTreeCount();
+        List<Tree> built = new ArrayList<>();
+        List<BitSet> builtInBag = new ArrayList<>();
+        int n = records.size();
+        int[] oobVotes = new int[n];
+        int[] oobCounts = new int[n];
+        double runningOob = 0.0;
+        long forestBytes = 0;
+        String stopReason = null;
+        for (int i = 0; i < treesToBuild; i++) {
+            if (listener.isCancelled()) {
+                throw new CancellationException("Training cancelled");
+            }
+            if (i > 0 && !heapHasRoom(n, plan.getSampleSize())) {
+                stopReason = "Stopped after " + i + " trees: heap nearly exhausted";
+                break;
+            }
+            boolean[] inBag = new boolean[n];
+            Tree t = new Tree(mtry);
+            t.build(bootstrapSample(records, rand, inBag, plan.getSampleSize()), rand, listener);
+            built.add(t);
+            builtInBag.add(toBitSet(inBag));
+            forestBytes += MemoryEstimate.TREE_BYTES + (long) t.getNodeCount() * MemoryEstimate.NODE_BYTES + MemoryEstimate.inBagBytes(n);
+            runningOob = updateOobAccuracy(t, records, inBag, oobVotes, oobCounts);
+            listener.treeBuilt(i + 1, treesToBuild, runningOob);
+        }
+        this.trees = built;
+        this.inBagRows = builtInBag;
         this.trainingData = records;
-        trees.clear();
-        for (int i = 0; i < numTrees; i++) {
-            List<Record> sample = new ArrayList<>();
-            for (int j = 0; j < records.size(); j++) {
-                sample.add(records.get(rand.nextInt(records.size())));
+        this.featureCount = widthOf(records);
+        this.sampleFraction = n > 0 ? (double) plan.getSampleSize() / n : 1.0;
+        this.oobAccuracy = runningOob;
+        this.memoryEstimate = plan.withForest(forestBytes, built.size(), stopReason);
+    }
+
+    // Requires room for another bootstrap and a worst-case tree. Current usage includes garbage not yet
+    // collected, so the heap is also judged by what each pool held after its last collection.
+    private static boolean heapHasRoom(int rows, int sampleSize) {
+        long needed = MemoryEstimate.bootstrapBytes(rows, sampleSize) + MemoryEstimate.perTreeBytes(rows, sampleSize);
+        return heapHeadroom() > needed;
+    }
+
+    private static long heapHeadroom() {
+        Runtime runtime = Runtime.getRuntime();
+        long free = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        return Math.max(free, runtime.maxMemory() - liveHeapAfterLastCollection());
+    }
+
+    private static long liveHeapAfterLastCollection() {
+        long live = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP) continue;
+            MemoryUsage afterCollection = pool.getCollectionUsage();
+            live += (afterCollection != null ? afterCollection : pool.getUsage()).getUsed();
+        }
+        return live;
+    }
+
+    private List<Record> bootstrapSample(List<Record> records, Random rand, boolean[] inBag, int sampleSize) {
+        List<Record> sample = new ArrayList<>(sampleSize);
+        for (int j = 0; j < sampleSize; j++) {
+            int index = rand.nextInt(records.size());
+            inBag[index] = true;
+            sample.add(records.get(index));
+        }
+        return sample;
+    }
+
+    private static BitSet toBitSet(boolean[] inBag) {
+        BitSet bits = new BitSet(inBag.length);
+        for (int i = 0; i < inBag.length; i++) {
+            if (inBag[i]) bits.set(i);
+        }
+        return bits;
+    }
+
+    // Scores the rows the new tree did not see, then recomputes accuracy over every row voted on so far
+    private double updateOobAccuracy(Tree tree, List<Record> records, boolean[] inBag, int[] oobVotes, int[] oobCounts) {
+        int scored = 0;
+        int correct = 0;
+        for (int i = 0; i < inBag.length; i++) {
+            if (!inBag[i]) {
+                if (tree.predict(records.get(i).getFeatures())) oobVotes[i]++;
+                oobCounts[i]++;
             }
-            Tree t = new Tree();
-            t.build(sample, rand);
-            trees.add(t);
+            if (oobCounts[i] > 0) {
+                scored++;
+                if ((oobVotes[i] * 2 > oobCounts[i]) == records.get(i).getLabel()) correct++;
+            }
+        }
+        return scored == 0 ? 0.0 : (double) correct / scored * 100.0;
+    }
+
+    // Incremental update after new data arrives: replaces the oldest trees with count trees bootstrapped from
+    // the current records, so the forest tracks appended rows without a full retrain. Bootstraps keep the
+    // last plan's sample fraction, and replacement stops early (keeping old trees) once the heap has no room
+    // for another tree. The OOB accuracy still describes the last full train.
+    public void refreshTrees(List<Record> records, Random rand, int count) {
+        if (records.isEmpty() || count <= 0) return;
+        if (trainingData != null && records.size() < trainingData.size()) {
+            discardOutOfBagRows(); // Fewer rows than before: the data was replaced, not appended to
+        }
+        int n = records.size();
+        int sampleSize = Math.max(1, (int) Math.round(n * sampleFraction));
+        int replace = Math.min(count, numTrees);
+        List<Tree> fresh = new ArrayList<>(replace);
+        List<BitSet> freshInBag = new ArrayList<>(replace);
+        for (int i = 0; i < replace && heapHasRoom(n, sampleSize); i++) {
+            boolean[] inBag = new boolean[n];
+            Tree t = new Tree(mtry);
+            t.build(bootstrapSample(records, rand, inBag, sampleSize), rand);
+            fresh.add(t);
+            freshInBag.add(toBitSet(inBag));
+        }
+        int keep = Math.min(trees.size(), numTrees - fresh.size());
+        List<Tree> refreshed = new ArrayList<>(trees.subList(trees.size() - keep, trees.size()));
+        List<BitSet> refreshedInBag = new ArrayList<>(inBagRows.subList(inBagRows.size() - keep, inBagRows.size()));
+        refreshed.addAll(fresh);
+        refreshedInBag.addAll(freshInBag);
+        this.inBagRows = refreshedInBag;
+        this.trees = refreshed;
+        this.trainingData = records;
+        this.featureCount = widthOf(records);
+    }
+
+    private static int widthOf(List<Record> records) {
+        return records.isEmpty() ? 0 : records.get(0).getFeatures().size();
+    }
+
+    // Call when the training rows were replaced (e.g. the source file was truncated or rotated) rather than appended
+    // to. The current trees' in-bag row indices no longer refer to the rows they were built from, so those trees
+    // are left out of permutation importance until they are refreshed.
+    public void discardOutOfBagRows() {
+        inBagRows = new ArrayList<>(Collections.nCopies(inBagRows.size(), (BitSet) null));
+    }
+
+    // Number of features every input must have; 0 before training
+    public int getFeatureCount() {
+        return featureCount;
+    }
+
+    public double getOobAccuracy() {
+        return oobAccuracy;
+    }
+
+    // Global importance of each feature over the training data: OOB permutation importance and mean decrease
+    // in impurity. Scores at most maxOobRowsPerTree out-of-bag rows per tree (0 scores them all) to bound the
+    // cost on large datasets.
+    public FeatureImportance computeFeatureImportance(List<String> featureNames, long seed, int maxOobRowsPerTree) {
+        return computeFeatureImportance(featureNames, seed, maxOobRowsPerTree, TrainingListener.NONE);
+    }
+
+    // listener.isCancelled() is polled by every (tree, feature) task; cancelling throws CancellationException.
+    // The working set must fit in what the memory budget leaves after the dataset and forest, and in the heap;
+    // otherwise this throws IllegalStateException without computing anything.
+    public FeatureImportance computeFeatureImportance(List<String> featureNames, long seed, int maxOobRowsPerTree, TrainingListener listener) {
+        if (trees.isEmpty() || trainingData == null || trainingData.isEmpty()) {
+            throw new IllegalStateException("Model is not trained");
         }
+        long heap = heapHeadroom();
+        long available = memoryBudget > 0 && memoryEstimate != null
+                ? Math.min(heap, memoryBudget - memoryEstimate.getDatasetBytes() - memoryEstimate.getForestBytes())
+                : heap;
+        return FeatureImportance.compute(trees, inBagRows, trainingData, featureNames, seed, maxOobRowsPerTree,
+                Math.max(1, available), listener);
     }
 
     public boolean predict(List<Double> features) {
@@ -34,6 +240,22 @@ public class RandomForest {
         return vote > trees.size() / 2;
     }
 
+    // Tree-outer kernel: each tree scores the whole batch before the next one, so its nodes stay hot in cache
+    public List<PredictionResult> predictBatch(List<List<Double>> batch) {
+        List<Tree> snapshot = trees;
+        int[] votes = new int[batch.size()];
+        for (Tree t : snapshot) {
+            for (int i = 0; i < votes.length; i++) {
+                if (t.predict(batch.get(i))) votes[i]++;
+            }
+        }
+        List<PredictionResult> results = new ArrayList<>(votes.length);
+        for (int vote : votes) {
+            results.add(new PredictionResult(vote > snapshot.size() / 2, vote, snapshot.size()));
+        }
+        return results;
+    }
+
     public double computeAccuracy(List<Record> records) {
         if (records.isEmpty()) return 0.0;
         int correct = 0;
@@ -56,27 +278,28 @@ public class RandomForest {
         }
         sb.append(vote).append("/").append(trees.size()).append(" trees voted Diabetic\n\n");
 
-        double[] diabeticMeans = new double[8];
+        int featureCount = input.size();
+        double[] diabeticMeans = new double[featureCount];
         int count = 0;
         for (Record r : trainingData) {
             if (r.getLabel()) {
-                for (int i = 0; i < 8; i++) {
+                for (int i = 0; i < featureCount; i++) {
                     diabeticMeans[i] += r.getFeatures().get(i);
                 }
                 count++;
             }
         }
-        for (int i = 0; i < 8; i++) {
+        for (int i = 0; i < featureCount; i++) {
             diabeticMeans[i] = count > 0 ? diabeticMeans[i] / count : 0.0;
         }
 
         List<String> names = collector.getFeatureNames();
         List<Double> diffs = new ArrayList<>();
-        for (int i = 0; i < 8; i++) {
+        for (int i = 0; i < featureCount; i++) {
             diffs.add(Math.abs(input.get(i) - diabeticMeans[i]));
         }
         List<Integer> topIndices = new ArrayList<>();
-        for (int i = 0; i < 3; i++) {
+        for (int i = 0; i < Math.min(3, featureCount); i++) {
             double max = -1;
             int index = -1;
             for (int j = 0; j < diffs.size(); j++) {
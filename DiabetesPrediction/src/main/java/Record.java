@@ -8,7 +8,7 @@ public class Record {
     private boolean label;
 
     public Record(int id, List<Double> features, boolean label) {
-        if (features.size() != 8) throw new IllegalArgumentException("Record must have exactly 8 features");
+        if (features.isEmpty()) throw new IllegalArgumentException("Record must have at least one feature");
         this.id = id;
         this.features = features;
         this.label = label;
@@ -2,150 +2,357 @@ package diabetes;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 public class RecordCollector {
-    private List<Record> records;
-    private final List<String> featureNames;
-    private double[] means;
-    private double[] stdDevs;
+    private static final int PROGRESS_INTERVAL = 1000;
 
-    // Initialize with immutable feature names
+    private final List<Record> records;
+    // Parsed values (NaN for missing cells) and labels. Kept only while rows are ingested incrementally;
+    // after a full load they are released and rebuilt from the records if appendRows is called later.
+    private List<double[]> rawRows;
+    private List<Boolean> labels;
+    // Missing cells by column, kept when raw rows are released: a real value equal to its column mean, or
+    // any value in a constant column, also normalizes to 0.0 and must not be mistaken for an imputed cell
+    private BitSet[] missing;
+    private volatile FeatureSchema schema;
+    private final boolean detectSchema;
+    private boolean recordsStale;
+    private boolean cacheEnabled;
+    private DatasetCache cached; // Backs the records after a warm load until raw rows are needed
+
+    // Running moments of the non-missing values per feature (Welford), updated row by row
+    private long[] counts;
+    private double[] runningMeans;
+    private double[] m2;
+
+    private volatile Normalization normalization;
+
+    // Published as a unit so normalizeInput never sees means and standard deviations from different refreshes
+    private static class Normalization {
+        final double[] means;
+        final double[] stdDevs;
+
+        Normalization(double[] means, double[] stdDevs) {
+            this.means = means;
+            this.stdDevs = stdDevs;
+        }
+    }
+
+    // Detect the schema from the CSV header, defaulting to the diabetes layout until a file is loaded
     public RecordCollector() {
+        this(FeatureSchema.diabetes(), true);
+    }
+
+    // Use a declared schema; the header row is skipped and every row must match its column count
+    public RecordCollector(FeatureSchema schema) {
+        this(schema, false);
+    }
+
+    private RecordCollector(FeatureSchema schema, boolean detectSchema) {
         this.records = new ArrayList<>();
-        this.featureNames = Collections.unmodifiableList(Arrays.asList(
-                "Pregnancies", "Glucose", "BloodPressure", "SkinThickness",
-                "Insulin", "BMI", "DiabetesPedigreeFunction", "Age"
-        ));
-        this.means = new double[featureNames.size()];
-        this.stdDevs = new double[featureNames.size()];
+        this.rawRows = new ArrayList<>();
+        this.labels = new ArrayList<>();
+        this.schema = schema;
+        this.detectSchema = detectSchema;
+        resetStatistics();
     }
 
-    public List<Record> getRecords() {
+    public synchronized List<Record> getRecords() {
+        if (recordsStale) rebuildRecords();
         return new ArrayList<>(records); // Defensive copy to prevent external modification
     }
 
+    public synchronized int getRecordCount() {
+        if (cached != null) return cached.getRowCount();
+        return recordsStale ? rawRows.size() : records.size();
+    }
+
+    // Approximate heap held by the dataset: raw rows, labels and the normalized records.
+    // Rows backed by the memory-mapped cache only count their small on-heap views.
+    public synchronized long estimateMemoryBytes() {
+        long rowBytes = MemoryEstimate.REFERENCE + MemoryEstimate.align(MemoryEstimate.ARRAY_HEADER + 8L * schema.getFeatureCount());
+        long maskBytes = missing == null ? 0 : missing.length * MemoryEstimate.bitSetBytes(records.size());
+        return rawRows.size() * (rowBytes + MemoryEstimate.REFERENCE) + maskBytes + MemoryEstimate.datasetBytes(records);
+    }
+
+    // When enabled, loadFromCSV reuses a valid "<csv>.cache" file and writes one after parsing
+    public synchronized void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+
+    public synchronized boolean isLoadedFromCache() {
+        return cached != null;
+    }
+
+    public FeatureSchema getSchema() {
+        return schema;
+    }
+
     public List<String> getFeatureNames() {
-        return featureNames; // Already immutable
+        return schema.getFeatureNames(); // Already immutable
     }
 
     public boolean loadFromCSV(String path) {
-        records.clear();
+        return loadFromCSV(path, TrainingListener.NONE);
+    }
+
+    public synchronized boolean loadFromCSV(String path, TrainingListener listener) {
+        clear();
+        File source = new File(path);
+        if (cacheEnabled && loadFromCache(path, source)) {
+            listener.rowsParsed(cached.getRowCount());
+            return true;
+        }
         try (BufferedReader br = new BufferedReader(new FileReader(path))) {
+            long sourceLength = source.length();
+            long sourceModified = DatasetCache.lastModified(source);
+            String header = br.readLine();
+            if (header == null) {
+                System.err.println("No valid records found in CSV: " + path);
+                return false;
+            }
+            applyHeader(header);
             String line;
-            int id = 1;
-            br.readLine(); // Skip header
+            int linesRead = 0;
             while ((line = br.readLine()) != null) {
-                String[] tokens = line.split(",");
-                if (tokens.length != 9) {
-                    System.err.println("Skipping invalid line (wrong column count): " + line);
-                    continue;
-                }
-                List<Double> features = new ArrayList<>();
-                try {
-                    for (int i = 0; i < 8; i++) {
-                        String token = tokens[i].trim();
-                        features.add(token.isEmpty() || "null".equalsIgnoreCase(token) ? Double.NaN : Double.parseDouble(token));
-                    }
-                    boolean label = Double.parseDouble(tokens[8].trim()) > 0.5;
-                    records.add(new Record(id++, features, label));
-                } catch (NumberFormatException e) {
-                    System.err.println("Skipping line with invalid numeric data: " + line);
+                if (++linesRead % PROGRESS_INTERVAL == 0) {
+                    if (listener.isCancelled()) throw new CancellationException("Loading cancelled");
+                    listener.rowsParsed(rawRows.size());
                 }
+                parseRow(line);
             }
-            if (records.isEmpty()) {
+            listener.rowsParsed(rawRows.size());
+            if (rawRows.isEmpty()) {
                 System.err.println("No valid records found in CSV: " + path);
                 return false;
             }
-            handleMissingData(records);
-            normalizeFeatures(records);
+            refreshNormalization();
+            rebuildRecords();
+            if (cacheEnabled) writeCache(path, sourceLength, sourceModified);
+            releaseRawRows();
             return true;
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
             System.err.println("Error loading file " + path + ": " + e.getMessage());
             return false;
         }
     }
 
-    private void handleMissingData(List<Record> records) {
-        int featureCount = featureNames.size();
-        means = new double[featureCount];
-        int[] nonMissingCounts = new int[featureCount];
+    private boolean loadFromCache(String path, File source) {
+        DatasetCache cache = DatasetCache.open(DatasetCache.cacheFileFor(path), source);
+        if (cache == null || (!detectSchema && !cache.getSchema().equals(schema))) {
+            return false;
+        }
+        schema = cache.getSchema();
+        counts = cache.getCounts();
+        runningMeans = cache.getRunningMeans();
+        m2 = cache.getM2();
+        normalization = new Normalization(cache.getMeans(), cache.getStdDevs());
+        for (int i = 0; i < cache.getRowCount(); i++) {
+            records.add(new Record(i + 1, cache.normalizedRow(i), cache.getLabel(i)));
+        }
+        cached = cache;
+        return true;
+    }
 
-        // Calculate means
-        for (Record r : records) {
-            List<Double> features = r.getFeatures();
-            for (int i = 0; i < featureCount; i++) {
-                if (!Double.isNaN(features.get(i))) {
-                    means[i] += features.get(i);
-                    nonMissingCounts[i]++;
-                }
-            }
+    private void writeCache(String path, long sourceLength, long sourceModified) {
+        Normalization n = normalization;
+        try {
+            DatasetCache.write(DatasetCache.cacheFileFor(path), sourceLength, sourceModified, schema, rawRows, labels,
+                    n.means, n.stdDevs, counts, runningMeans, m2);
+        } catch (IOException e) {
+            System.err.println("Could not write dataset cache for " + path + ": " + e.getMessage());
         }
-        for (int i = 0; i < featureCount; i++) {
-            means[i] = nonMissingCounts[i] > 0 ? means[i] / nonMissingCounts[i] : 0.0;
+    }
+
+    private void releaseRawRows() {
+        int featureCount = schema.getFeatureCount();
+        missing = new BitSet[featureCount];
+        for (int j = 0; j < featureCount; j++) {
+            missing[j] = new BitSet(rawRows.size());
+        }
+        for (int i = 0; i < rawRows.size(); i++) {
+            double[] raw = rawRows.get(i);
+            for (int j = 0; j < featureCount; j++) {
+                if (Double.isNaN(raw[j])) missing[j].set(i);
+            }
         }
+        rawRows = new ArrayList<>();
+        labels = new ArrayList<>();
+    }
 
-        // Replace NaN values with means
+    // Brings back raw rows once something appends to a fully loaded dataset: copied from the mapped raw
+    // columns of a cache-backed load, otherwise reversed from the normalized records and the missing mask
+    private void materializeRawRows() {
+        if (cached != null) {
+            for (int i = 0; i < cached.getRowCount(); i++) {
+                rawRows.add(cached.rawRow(i));
+                labels.add(cached.getLabel(i));
+            }
+            cached = null;
+            return;
+        }
+        if (!rawRows.isEmpty() || records.isEmpty()) return;
+        Normalization n = normalization;
         for (int i = 0; i < records.size(); i++) {
-            List<Double> features = new ArrayList<>(records.get(i).getFeatures());
-            for (int j = 0; j < featureCount; j++) {
-                if (Double.isNaN(features.get(j))) {
-                    features.set(j, means[j]);
-                }
+            Record record = records.get(i);
+            List<Double> features = record.getFeatures();
+            double[] raw = new double[features.size()];
+            for (int j = 0; j < raw.length; j++) {
+                raw[j] = missing[j].get(i) ? Double.NaN : features.get(j) * n.stdDevs[j] + n.means[j];
             }
-            records.set(i, new Record(records.get(i).getId(), features, records.get(i).getLabel()));
+            rawRows.add(raw);
+            labels.add(record.getLabel());
         }
+        missing = null;
     }
 
-    private void normalizeFeatures(List<Record> records) {
-        int featureCount = featureNames.size();
-        means = new double[featureCount]; // Recalculate means
-        double[] variances = new double[featureCount];
+    // Starts an empty dataset from a header line, for callers that feed rows incrementally
+    public synchronized void startDataset(String header) {
+        clear();
+        applyHeader(header);
+    }
 
-        // Calculate means
-        for (Record r : records) {
-            List<Double> features = r.getFeatures();
-            for (int i = 0; i < featureCount; i++) {
-                means[i] += features.get(i);
-            }
+    // Parses appended CSV rows and folds them into the running statistics. The cost depends only on
+    // the new rows; the normalized records are rebuilt lazily on the next getRecords() call.
+    public synchronized int appendRows(List<String> lines) {
+        materializeRawRows();
+        int before = rawRows.size();
+        for (String line : lines) {
+            parseRow(line);
         }
-        for (int i = 0; i < featureCount; i++) {
-            means[i] /= records.size();
+        int added = rawRows.size() - before;
+        if (added > 0) {
+            refreshNormalization();
+            recordsStale = true;
+        }
+        return added;
+    }
+
+    private void clear() {
+        records.clear();
+        rawRows = new ArrayList<>();
+        labels = new ArrayList<>();
+        missing = null;
+        cached = null;
+        recordsStale = false;
+        resetStatistics();
+    }
+
+    private void applyHeader(String header) {
+        if (!detectSchema) return;
+        FeatureSchema detected = FeatureSchema.fromHeader(header);
+        if (detected.getFeatureCount() != schema.getFeatureCount()) {
+            normalization = null; // Statistics from a previous schema no longer apply
         }
+        schema = detected;
+        resetStatistics();
+    }
+
+    private void resetStatistics() {
+        int featureCount = schema.getFeatureCount();
+        counts = new long[featureCount];
+        runningMeans = new double[featureCount];
+        m2 = new double[featureCount];
+    }
 
-        // Calculate variances
-        for (Record r : records) {
-            List<Double> features = r.getFeatures();
-            for (int i = 0; i < featureCount; i++) {
-                double diff = features.get(i) - means[i];
-                variances[i] += diff * diff;
+    private void parseRow(String line) {
+        String[] tokens = line.split(",", -1);
+        if (tokens.length != schema.getColumnCount()) {
+            System.err.println("Skipping invalid line (wrong column count): " + line);
+            return;
+        }
+        double[] features = new double[schema.getFeatureCount()];
+        try {
+            for (int column = 0; column < tokens.length; column++) {
+                int feature = schema.featureIndexOf(column);
+                if (feature < 0) continue;
+                String token = tokens[column].trim();
+                features[feature] = token.isEmpty() || "null".equalsIgnoreCase(token) ? Double.NaN : Double.parseDouble(token);
             }
+            boolean label = Double.parseDouble(tokens[schema.getLabelColumn()].trim()) > 0.5;
+            rawRows.add(features);
+            labels.add(label);
+            updateStatistics(features);
+        } catch (NumberFormatException e) {
+            System.err.println("Skipping line with invalid numeric data: " + line);
+        }
+    }
+
+    private void updateStatistics(double[] features) {
+        for (int i = 0; i < features.length; i++) {
+            double x = features[i];
+            if (Double.isNaN(x)) continue;
+            counts[i]++;
+            double delta = x - runningMeans[i];
+            runningMeans[i] += delta / counts[i];
+            m2[i] += delta * (x - runningMeans[i]);
         }
+    }
+
+    // Missing values are imputed with the column mean, which leaves that mean unchanged and adds no
+    // variance, so the normalization statistics follow from the running moments of the non-missing values
+    private void refreshNormalization() {
+        int featureCount = schema.getFeatureCount();
+        int rowCount = rawRows.size();
+        double[] means = new double[featureCount];
+        double[] stdDevs = new double[featureCount];
         for (int i = 0; i < featureCount; i++) {
-            stdDevs[i] = Math.sqrt(variances[i] / records.size());
+            means[i] = counts[i] > 0 ? runningMeans[i] : 0.0;
+            stdDevs[i] = Math.sqrt(m2[i] / rowCount);
             if (stdDevs[i] == 0) stdDevs[i] = 1.0; // Avoid division by zero
         }
+        normalization = new Normalization(means, stdDevs);
+    }
 
-        // Apply normalization
-        for (int i = 0; i < records.size(); i++) {
-            List<Double> features = new ArrayList<>(records.get(i).getFeatures());
+    // Imputes and normalizes every raw row; an imputed value normalizes to exactly 0.0
+    private void rebuildRecords() {
+        Normalization n = normalization;
+        int featureCount = schema.getFeatureCount();
+        double[] row = new double[featureCount];
+        records.clear();
+        for (int i = 0; i < rawRows.size(); i++) {
+            double[] raw = rawRows.get(i);
             for (int j = 0; j < featureCount; j++) {
-                features.set(j, (features.get(j) - means[j]) / stdDevs[j]);
+                row[j] = Double.isNaN(raw[j]) ? 0.0 : (raw[j] - n.means[j]) / n.stdDevs[j];
             }
-            records.set(i, new Record(records.get(i).getId(), features, records.get(i).getLabel()));
+            records.add(new Record(i + 1, SparseFeatureList.of(row), labels.get(i)));
         }
+        recordsStale = false;
+    }
+
+    // Raw-scale inputs matching the loaded schema, drawn per column from a normal distribution with the
+    // dataset's mean and standard deviation. Used to warm up and load-test the predict path on any dataset.
+    public List<List<Double>> sampleInputs(int count, long seed) {
+        Normalization n = normalization;
+        if (n == null) {
+            throw new IllegalStateException("Normalization parameters not initialized. Load a dataset first.");
+        }
+        Random random = new Random(seed);
+        List<List<Double>> inputs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            List<Double> input = new ArrayList<>(n.means.length);
+            for (int j = 0; j < n.means.length; j++) {
+                input.add(n.means[j] + random.nextGaussian() * n.stdDevs[j]);
+            }
+            inputs.add(input);
+        }
+        return inputs;
     }
 
     public List<Double> normalizeInput(List<Double> input) {
-        if (input.size() != featureNames.size()) {
-            throw new IllegalArgumentException("Input must have " + featureNames.size() + " features");
+        int featureCount = schema.getFeatureCount();
+        if (input.size() != featureCount) {
+            throw new IllegalArgumentException("Input must have " + featureCount + " features");
         }
-        if (means == null || stdDevs == null) {
+        Normalization n = normalization;
+        if (n == null) {
             throw new IllegalStateException("Normalization parameters not initialized. Load a dataset first.");
         }
-        List<Double> normalized = new ArrayList<>();
-        for (int i = 0; i < featureNames.size(); i++) {
-            normalized.add((input.get(i) - means[i]) / stdDevs[i]);
+        List<Double> normalized = new ArrayList<>(featureCount);
+        for (int i = 0; i < featureCount; i++) {
+            normalized.add((input.get(i) - n.means[i]) / n.stdDevs[i]);
         }
         return normalized;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,60 @@
+package diabetes;
+
+import java.util.*;
+
+// Immutable feature vector that only stores non-zero entries. After imputation and
+// normalization every missing value becomes exactly 0.0, so rows from wide panels
+// with mostly-missing columns collapse to a handful of stored values.
+public class SparseFeatureList extends AbstractList<Double> implements RandomAccess {
+    // Rows denser than this are cheaper to keep as a plain list
+    private static final double MAX_DENSITY = 0.25;
+
+    private final int size;
+    private final int[] indices;
+    private final double[] values;
+
+    private SparseFeatureList(int size, int[] indices, double[] values) {
+        this.size = size;
+        this.indices = indices;
+        this.values = values;
+    }
+
+    // Picks sparse or dense storage for a row depending on how many entries are non-zero
+    public static List<Double> of(double[] row) {
+        int nonZero = 0;
+        for (double v : row) {
+            if (v != 0.0) nonZero++;
+        }
+        if (nonZero > row.length * MAX_DENSITY) {
+            List<Double> dense = new ArrayList<>(row.length);
+            for (double v : row) dense.add(v);
+            return dense;
+        }
+        int[] indices = new int[nonZero];
+        double[] values = new double[nonZero];
+        int k = 0;
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] != 0.0) {
+                indices[k] = i;
+                values[k++] = row[i];
+            }
+        }
+        return new SparseFeatureList(row.length, indices, values);
+    }
+
+    public int getStoredCount() {
+        return indices.length;
+    }
+
+    @Override
+    public Double get(int index) {
+        Objects.checkIndex(index, size);
+        int pos = Arrays.binarySearch(indices, index);
+        return pos >= 0 ? values[pos] : 0.0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
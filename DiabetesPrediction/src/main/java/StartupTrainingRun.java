@@ -0,0 +1,69 @@
+package diabetes;
+
+import javax.swing.*;
+import java.awt.HeadlessException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Training run for a JDK AOT/CDS cache: exercises CSV loading (cold and cached), training, single and
+// batched prediction, and the GUI component classes on a seeded synthetic dataset, then exits.
+// It also prints the JVM uptime at which the warmed-up model was ready; run it again with the cache to
+// compare. See README "Fast startup" for the record/create/run commands.
+public class StartupTrainingRun {
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int trees = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        long started = System.nanoTime();
+
+        File dir = Files.createTempDirectory("diabetes-training-run").toFile();
+        File csv = new File(dir, "synthetic.csv");
+        SyntheticData.writeCsv(csv, rows, SEED);
+        RecordCollector collector = new RecordCollector();
+        collector.setCacheEnabled(true);
+        if (!collector.loadFromCSV(csv.getAbsolutePath()) || !collector.loadFromCSV(csv.getAbsolutePath())) {
+            System.err.println("Training run could not load its synthetic dataset");
+            System.exit(1);
+        }
+
+        RandomForest forest = new RandomForest(trees);
+        List<Record> records = collector.getRecords();
+        forest.train(records, new Random(SEED), TrainingListener.NONE);
+        forest.computeAccuracy(records);
+        ModelWarmup.Report report = ModelWarmup.warmUp(forest, collector, 5000, SEED);
+        long readyUptime = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        try (PredictionBatcher batcher = new PredictionBatcher(forest, 32, Duration.ofMillis(1), 1024)) {
+            for (List<Double> input : collector.sampleInputs(256, SEED)) {
+                batcher.submit(collector.normalizeInput(input)).join();
+            }
+        }
+        loadGuiClasses();
+
+        DatasetCache.cacheFileFor(csv.getAbsolutePath()).delete();
+        csv.delete();
+        dir.delete();
+        System.out.println(report);
+        System.out.printf("JVM start to ready: %d ms%n", readyUptime);
+        System.out.printf("Training run finished in %d ms%n", (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Components that can be created without a display; JFrame itself needs one and is skipped when headless
+    private static void loadGuiClasses() {
+        try {
+            List<JComponent> components = Arrays.asList(new JPanel(), new JTextArea(), new JTextField(), new JButton(),
+                    new JLabel(), new JProgressBar(), new JScrollPane(), new AccuracyCurvePanel());
+            components.forEach(JComponent::getPreferredSize);
+            new JFrame().dispose();
+        } catch (HeadlessException e) {
+            // Expected on build servers
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package diabetes;
+
+import java.io.*;
+import java.util.*;
+
+// Seeded generator for diabetes-like data in the Pima layout, used as the default dataset of the load test and
+// the AOT training run.
+// Raw values stay inside the ranges the GUI accepts; roughly 2% of cells are left empty to exercise imputation.
+public class SyntheticData {
+    private static final String HEADER = "Pregnancies,Glucose,BloodPressure,SkinThickness,Insulin,BMI,DiabetesPedigreeFunction,Age,Outcome";
+    private static final double MISSING_RATE = 0.02;
+
+    private SyntheticData() {
+    }
+
+    public static void writeCsv(File file, int rows, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+            writer.write(HEADER);
+            writer.newLine();
+            for (int i = 0; i < rows; i++) {
+                boolean label = random.nextDouble() < 0.35;
+                double[] row = sampleRow(random, label);
+                StringBuilder line = new StringBuilder();
+                for (double v : row) {
+                    if (random.nextDouble() >= MISSING_RATE) line.append(format(v));
+                    line.append(',');
+                }
+                line.append(label ? 1 : 0);
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+    }
+
+    private static double[] sampleRow(Random random, boolean diabetic) {
+        return new double[]{
+                Math.floor(clamp(Math.abs(random.nextGaussian()) * (diabetic ? 5 : 3), 0, 20)),
+                Math.round(clamp(random.nextGaussian() * 25 + (diabetic ? 142 : 110), 44, 199)),
+                Math.round(clamp(random.nextGaussian() * 12 + 70, 24, 122)),
+                Math.round(clamp(random.nextGaussian() * 10 + (diabetic ? 33 : 27), 7, 99)),
+                Math.round(clamp(random.nextGaussian() * 90 + (diabetic ? 180 : 130), 14, 846)),
+                Math.round(clamp(random.nextGaussian() * 6 + (diabetic ? 35 : 30), 18, 50) * 10) / 10.0,
+                Math.round(clamp(random.nextGaussian() * 0.3 + (diabetic ? 0.55 : 0.43), 0.08, 2.42) * 1000) / 1000.0,
+                Math.round(clamp(random.nextGaussian() * 11 + (diabetic ? 37 : 31), 21, 81))
+        };
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+
+    private static String format(double v) {
+        return v == Math.rint(v) ? String.valueOf((long) v) : String.valueOf(v);
+    }
+}
@@ -0,0 +1,19 @@
+package diabetes;
+
+// Receives progress from RecordCollector.loadFromCSV and RandomForest.train. Callbacks run on the
+// loading/training thread, so GUI listeners must hand updates over to the EDT themselves.
+public interface TrainingListener {
+    TrainingListener NONE = new TrainingListener() {};
+
+    default void rowsParsed(int rows) {
+    }
+
+    // oobAccuracy is the out-of-bag accuracy (percent) of the trees built so far
+    default void treeBuilt(int treesBuilt, int totalTrees, double oobAccuracy) {
+    }
+
+    // Polled between rows, trees and node splits; returning true aborts with a CancellationException
+    default boolean isCancelled() {
+        return false;
+    }
+}
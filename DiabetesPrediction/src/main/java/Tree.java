@@ -1,18 +1,44 @@
 package diabetes;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.*;
+import java.util.concurrent.CancellationException;
 
 public class Tree {
     private Node root;
-    private static final int MAX_DEPTH = 10;
+    static final int MAX_DEPTH = 10;
+    private final int mtry;
+    private double[] splitGains = new double[0];
+    private int sampleSize;
+
+    // Samples the default number of candidate features (square root of the width) at each split
+    public Tree() {
+        this(0);
+    }
+
+    // mtry is the number of candidate features tried per split; 0 selects the default
+    public Tree(int mtry) {
+        if (mtry < 0) throw new IllegalArgumentException("mtry must not be negative");
+        this.mtry = mtry;
+    }
+
+    public static int defaultMtry(int featureCount) {
+        return Math.max(1, (int) Math.sqrt(featureCount));
+    }
 
     public void build(List<Record> records, Random random) {
-        root = buildTree(records, 0, random);
+        build(records, random, TrainingListener.NONE);
+    }
+
+    public void build(List<Record> records, Random random, TrainingListener listener) {
+        sampleSize = records.size();
+        splitGains = new double[records.isEmpty() ? 0 : records.get(0).getFeatures().size()];
+        root = buildTree(records, 0, random, listener);
     }
 
-    private Node buildTree(List<Record> records, int depth, Random random) {
+    private Node buildTree(List<Record> records, int depth, Random random, TrainingListener listener) {
+        if (listener.isCancelled()) {
+            throw new CancellationException("Training cancelled");
+        }
         if (records.isEmpty()) {
             return new Node(false);
         }
@@ -20,13 +46,31 @@ public class Tree {
             return new Node(majorityLabel(records));
         }
 
-        int attribute = random.nextInt(8);
-        List<Double> values = new ArrayList<>();
-        for (Record record : records) {
-            values.add(record.getFeatures().get(attribute));
+        int featureCount = records.get(0).getFeatures().size();
+        int candidates = Math.min(featureCount, mtry > 0 ? mtry : defaultMtry(featureCount));
+        int attribute = -1;
+        double threshold = 0.0;
+        double bestImpurity = Double.POSITIVE_INFINITY;
+        double[] values = new double[records.size()];
+        for (int candidate : sampleFeatures(featureCount, candidates, random)) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = records.get(i).getFeatures().get(candidate);
+            }
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            double median = (sorted[(sorted.length - 1) / 2] + sorted[sorted.length / 2]) / 2.0;
+            double impurity = splitImpurity(records, values, median);
+            if (impurity < bestImpurity) {
+                bestImpurity = impurity;
+                attribute = candidate;
+                threshold = median;
+            }
         }
-        values.sort(Double::compareTo);
-        double threshold = values.get(values.size() / 2);
+
+        // Gini decrease weighted by the share of the sample reaching this node (mean decrease in impurity)
+        long positives = records.stream().filter(Record::getLabel).count();
+        double parentImpurity = gini((int) positives, records.size());
+        splitGains[attribute] += (double) records.size() / sampleSize * Math.max(0.0, parentImpurity - bestImpurity);
 
         List<Record> leftRecords = new ArrayList<>();
         List<Record> rightRecords = new ArrayList<>();
@@ -39,11 +83,46 @@ public class Tree {
         }
 
         Node node = new Node(attribute, threshold);
-        node.left = buildTree(leftRecords, depth + 1, random);
-        node.right = buildTree(rightRecords, depth + 1, random);
+        node.left = buildTree(leftRecords, depth + 1, random, listener);
+        node.right = buildTree(rightRecords, depth + 1, random, listener);
         return node;
     }
 
+    // Draws k distinct feature indices in O(k) (Floyd's algorithm) so wide schemas stay cheap per split
+    private List<Integer> sampleFeatures(int featureCount, int k, Random random) {
+        if (k == 1) {
+            return Collections.singletonList(random.nextInt(featureCount));
+        }
+        Set<Integer> chosen = new LinkedHashSet<>();
+        for (int j = featureCount - k; j < featureCount; j++) {
+            int t = random.nextInt(j + 1);
+            chosen.add(chosen.contains(t) ? j : t);
+        }
+        return new ArrayList<>(chosen);
+    }
+
+    // Weighted Gini impurity of splitting the records at the given threshold
+    private double splitImpurity(List<Record> records, double[] values, double threshold) {
+        int leftCount = 0, leftPositive = 0, rightPositive = 0;
+        for (int i = 0; i < values.length; i++) {
+            boolean label = records.get(i).getLabel();
+            if (values[i] <= threshold) {
+                leftCount++;
+                if (label) leftPositive++;
+            } else if (label) {
+                rightPositive++;
+            }
+        }
+        int rightCount = values.length - leftCount;
+        return (leftCount * gini(leftPositive, leftCount) + rightCount * gini(rightPositive, rightCount)) / values.length;
+    }
+
+    private double gini(int positive, int total) {
+        if (total == 0) return 0.0;
+        double p = (double) positive / total;
+        return 2.0 * p * (1.0 - p);
+    }
+
     private boolean allSameLabel(List<Record> records) {
         if (records.isEmpty()) return true;
         boolean label = records.get(0).getLabel();
@@ -55,10 +134,42 @@ public class Tree {
         return positiveCount > records.size() / 2;
     }
 
+    // Total impurity decrease per feature from the last build, indexed like the feature list
+    public double[] getSplitGains() {
+        return splitGains.clone();
+    }
+
+    public int getNodeCount() {
+        return countNodes(root);
+    }
+
+    private int countNodes(Node node) {
+        if (node == null) return 0;
+        return 1 + countNodes(node.left) + countNodes(node.right);
+    }
+
     public boolean predict(List<Double> features) {
         if (root == null) {
             return false;
         }
         return root.predict(features);
     }
+
+    // Scores one row of a feature-major column table without boxing. When permutedFeature is not -1, that
+    // feature's value is read from sourceRow instead, which is how permutation importance shuffles a column.
+    boolean predict(double[][] columns, int row, int permutedFeature, int sourceRow) {
+        Node node = root;
+        if (node == null) {
+            return false;
+        }
+        while (!node.isLeaf) {
+            int attribute = node.attribute;
+            double value = columns[attribute][attribute == permutedFeature ? sourceRow : row];
+            node = value <= node.threshold ? node.left : node.right;
+            if (node == null) {
+                return false;
+            }
+        }
+        return node.label;
+    }
 }
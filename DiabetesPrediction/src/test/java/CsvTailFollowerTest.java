@@ -0,0 +1,113 @@
+package diabetes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsvTailFollowerTest {
+    private static final String HEADER = "Pregnancies,Glucose,BloodPressure,SkinThickness,Insulin,BMI,DiabetesPedigreeFunction,Age,Outcome\n";
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void test_poll_normal_appendOnlyReadsNewBytes() throws IOException {
+        // Scenario: Initial load, then two appended rows, one of them split across writes
+        Path csv = tempDir.toPath().resolve("growing.csv");
+        Files.writeString(csv, HEADER + "6,148,72,35,0,33.6,0.627,50,1\n1,85,66,29,0,26.6,0.351,31,0\n");
+        RecordCollector collector = new RecordCollector();
+        List<Integer> appended = new ArrayList<>();
+        CsvTailFollower follower = new CsvTailFollower(csv, collector, appended::add);
+
+        assertEquals(2, follower.poll(), "Initial poll should load existing rows");
+        long offset = follower.getOffset();
+        assertEquals(Files.size(csv), offset, "Offset should be at end of file");
+        assertEquals(0, follower.poll(), "Unchanged file should add nothing");
+
+        append(csv, "8,183,64,0,0,23.3,0.672,32,1\n5,116,74");
+        assertEquals(1, follower.poll(), "Only the complete appended line should be parsed");
+        append(csv, ",0,0,25.6,0.201,30,0\n");
+        assertEquals(1, follower.poll(), "Completed partial line should be parsed");
+        assertEquals(4, collector.getRecords().size(), "Collector should hold all rows");
+        assertEquals(List.of(2, 1, 1), appended, "Callback should receive each refresh's row count");
+    }
+
+    @Test
+    void test_poll_normal_matchesFullLoad() throws IOException {
+        // Scenario: Incrementally ingested data normalizes the same as a full reload of the file
+        Path csv = tempDir.toPath().resolve("stats.csv");
+        Files.writeString(csv, HEADER + "6,148,72,35,0,33.6,0.627,50,1\n");
+        RecordCollector incremental = new RecordCollector();
+        CsvTailFollower follower = new CsvTailFollower(csv, incremental, null);
+        follower.poll();
+        append(csv, "1,,66,29,0,26.6,0.351,31,0\n8,183,64,0,0,23.3,0.672,32,1\n");
+        follower.poll();
+
+        RecordCollector full = new RecordCollector();
+        assertTrue(full.loadFromCSV(csv.toString()), "Full load should succeed");
+        List<Record> expected = full.getRecords();
+        List<Record> actual = incremental.getRecords();
+        assertEquals(expected.size(), actual.size(), "Same number of rows");
+        for (int i = 0; i < expected.size(); i++) {
+            for (int j = 0; j < 8; j++) {
+                assertEquals(expected.get(i).getFeatures().get(j), actual.get(i).getFeatures().get(j), 1e-9, "Normalized values should match");
+            }
+        }
+        List<Double> raw = List.of(3.0, 120.0, 70.0, 20.0, 80.0, 30.0, 0.5, 40.0);
+        assertEquals(full.normalizeInput(raw), incremental.normalizeInput(raw), "Inference statistics should match");
+    }
+
+    @Test
+    void test_poll_edge_truncatedAndRotated() throws IOException {
+        // Scenario: File is truncated and rewritten, then replaced by a new file (rotation)
+        Path csv = tempDir.toPath().resolve("rotating.csv");
+        Files.writeString(csv, HEADER + "6,148,72,35,0,33.6,0.627,50,1\n1,85,66,29,0,26.6,0.351,31,0\n");
+        RecordCollector collector = new RecordCollector();
+        int[] resets = new int[1];
+        CsvTailFollower follower = new CsvTailFollower(csv, collector, null, () -> resets[0]++);
+        follower.poll();
+        assertEquals(0, resets[0], "Initial load is not a reset");
+
+        Files.writeString(csv, HEADER + "2,100,70,20,0,25.0,0.3,22,0\n");
+        assertEquals(1, follower.poll(), "Truncated file should be reloaded from its header");
+        assertEquals(1, collector.getRecordCount(), "Old rows should be discarded after truncation");
+        assertEquals(1, resets[0], "Truncation should be reported as a reset");
+
+        Path rotated = tempDir.toPath().resolve("rotating.csv.new");
+        Files.writeString(rotated, HEADER + "1,90,60,20,0,22.0,0.2,25,0\n3,150,80,30,0,35.0,0.9,45,1\n4,160,82,31,0,36.0,1.0,50,1\n");
+        Files.move(rotated, csv, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        assertEquals(3, follower.poll(), "Rotated file should be read from the start");
+        assertEquals(3, collector.getRecordCount(), "Collector should only hold the new file's rows");
+        assertEquals(2, resets[0], "Rotation should be reported as a reset");
+    }
+
+    @Test
+    void test_poll_edge_truncatedAndRegrownPastOffset() throws IOException {
+        // Scenario: copytruncate-style rotation; the file is truncated and rewritten longer than before
+        // between two polls, so its size alone never drops below the stored offset
+        Path csv = tempDir.toPath().resolve("copytruncate.csv");
+        Files.writeString(csv, HEADER + "6,148,72,35,0,33.6,0.627,50,1\n");
+        RecordCollector collector = new RecordCollector();
+        int[] resets = new int[1];
+        CsvTailFollower follower = new CsvTailFollower(csv, collector, null, () -> resets[0]++);
+        follower.poll();
+
+        Files.writeString(csv, HEADER + "2,100,70,20,0,25.0,0.3,22,0\n3,150,80,30,0,35.0,0.9,45,1\n4,160,82,31,0,36.0,1.0,50,1\n");
+        assertEquals(3, follower.poll(), "Rewritten file should be read from its header");
+        assertEquals(3, collector.getRecordCount(), "Only the rewritten rows should be held");
+        assertEquals(1, resets[0], "Rewrite should be reported as a reset");
+        assertEquals(0, follower.poll(), "Unchanged file should add nothing after the reset");
+    }
+
+    private void append(Path file, String text) throws IOException {
+        Files.writeString(file, text, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,79 @@
+package diabetes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatasetCacheTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void test_write_normal_roundTrip() throws IOException {
+        // Scenario: Cache written from raw rows reads back schema, statistics, columns and labels
+        File source = new File(tempDir, "source.csv");
+        Files.writeString(source.toPath(), "A,B,Outcome\n1,2,1\n");
+        File cacheFile = DatasetCache.cacheFileFor(source.getAbsolutePath());
+        FeatureSchema schema = new FeatureSchema(Arrays.asList("A", "B"), "Outcome", 2);
+        List<double[]> rows = Arrays.asList(new double[]{1.0, Double.NaN}, new double[]{3.0, 4.0});
+        DatasetCache.write(cacheFile, source.length(), DatasetCache.lastModified(source), schema, rows, Arrays.asList(true, false),
+                new double[]{2.0, 4.0}, new double[]{1.0, 1.0}, new long[]{2, 1}, new double[]{2.0, 4.0}, new double[]{2.0, 0.0});
+
+        DatasetCache cache = DatasetCache.open(cacheFile, source);
+        assertNotNull(cache, "Fresh cache should be valid");
+        assertEquals(schema, cache.getSchema(), "Schema should round-trip");
+        assertEquals(2, cache.getRowCount(), "Row count should round-trip");
+        assertArrayEquals(new long[]{2, 1}, cache.getCounts(), "Running counts should round-trip");
+        assertTrue(Double.isNaN(cache.rawRow(0)[1]), "Missing raw values should stay NaN");
+        assertEquals(Arrays.asList(-1.0, 0.0), cache.normalizedRow(0), "Normalized row should impute missing values as 0.0");
+        assertTrue(cache.getLabel(0), "First label should be true");
+        assertFalse(cache.getLabel(1), "Second label should be false");
+    }
+
+    @Test
+    void test_write_error_moveFails() throws IOException {
+        // Scenario: The cache path is a non-empty directory, so the final move fails; no temporary file may be left behind
+        File source = new File(tempDir, "blocked.csv");
+        Files.writeString(source.toPath(), "A,Outcome\n1,1\n");
+        File cacheFile = DatasetCache.cacheFileFor(source.getAbsolutePath());
+        assertTrue(new File(cacheFile, "occupied").mkdirs(), "Blocking directory should be created");
+        assertThrows(IOException.class, () -> DatasetCache.write(cacheFile, source.length(), DatasetCache.lastModified(source),
+                new FeatureSchema(Arrays.asList("A"), "Outcome", 1), Arrays.<double[]>asList(new double[]{1.0}), Arrays.asList(true),
+                new double[]{1.0}, new double[]{1.0}, new long[]{1}, new double[]{1.0}, new double[]{0.0}),
+                "A failed move should be reported");
+        String[] leftovers = tempDir.list((dir, name) -> name.endsWith(".tmp"));
+        assertEquals(0, leftovers.length, "The temporary cache file should be deleted when the move fails");
+    }
+
+    @Test
+    void test_open_edge_staleSource() throws IOException {
+        // Scenario: Source CSV grows after the cache was written, so the cache must be ignored
+        File source = new File(tempDir, "stale.csv");
+        Files.writeString(source.toPath(), "A,Outcome\n1,1\n");
+        File cacheFile = DatasetCache.cacheFileFor(source.getAbsolutePath());
+        DatasetCache.write(cacheFile, source.length(), DatasetCache.lastModified(source), new FeatureSchema(Arrays.asList("A"), "Outcome", 1),
+                Arrays.<double[]>asList(new double[]{1.0}), Arrays.asList(true),
+                new double[]{1.0}, new double[]{1.0}, new long[]{1}, new double[]{1.0}, new double[]{0.0});
+        try (FileWriter writer = new FileWriter(source, true)) {
+            writer.write("2,0\n");
+        }
+        assertNull(DatasetCache.open(cacheFile, source), "Cache for a modified source should be rejected");
+    }
+
+    @Test
+    void test_open_error_corrupt() throws IOException {
+        // Scenario: Cache file that is not in the expected format (boundary case)
+        File source = new File(tempDir, "corrupt.csv");
+        Files.writeString(source.toPath(), "A,Outcome\n1,1\n");
+        File cacheFile = DatasetCache.cacheFileFor(source.getAbsolutePath());
+        Files.writeString(cacheFile.toPath(), "not a cache");
+        assertNull(DatasetCache.open(cacheFile, source), "Corrupt cache should be rejected");
+    }
+}
@@ -0,0 +1,119 @@
+package diabetes;
+
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeatureImportanceTest {
+    private static final List<String> NAMES = Arrays.asList("Noise1", "Glucose", "Noise2");
+
+    @Test
+    void test_computeFeatureImportance_normal() {
+        // Scenario: Only the second feature carries the label, so both measures should rank it first
+        RandomForest forest = new RandomForest(30);
+        forest.train(TestRecords.separable(400), new Random(42));
+        FeatureImportance importance = forest.computeFeatureImportance(NAMES, 42, 0);
+        assertEquals(30, importance.getTreesScored(), "Every tree should have out-of-bag rows");
+        assertEquals(1, importance.getRanking().get(0), "Informative feature should rank first");
+        double[] permutation = importance.getPermutationImportance();
+        assertTrue(permutation[1] > 10.0, "Shuffling the informative feature should cost accuracy");
+        assertTrue(Math.abs(permutation[0]) < permutation[1] / 2, "Noise should matter much less");
+        double[] gain = importance.getSplitGainImportance();
+        assertEquals(1.0, gain[0] + gain[1] + gain[2], 1e-9, "Split gain shares should sum to one");
+        assertTrue(gain[1] > gain[0] && gain[1] > gain[2], "Informative feature should have the largest split gain");
+        assertTrue(importance.toString().startsWith("Feature importance"), "Report should have a heading");
+    }
+
+    @Test
+    void test_computeFeatureImportance_edge_rowCapDeterministic() {
+        // Scenario: Capped OOB rows with a fixed seed give the same result regardless of thread scheduling
+        RandomForest forest = new RandomForest(20);
+        forest.train(TestRecords.separable(600), new Random(42));
+        FeatureImportance first = forest.computeFeatureImportance(NAMES, 7, 50);
+        FeatureImportance second = forest.computeFeatureImportance(NAMES, 7, 50);
+        assertArrayEquals(first.getPermutationImportance(), second.getPermutationImportance(), "Same seed should reproduce");
+        assertEquals(1, first.getRanking().get(0), "Informative feature should still rank first on a subset");
+    }
+
+    @Test
+    void test_computeFeatureImportance_normal_afterRefresh() {
+        // Scenario: Trees added by refreshTrees on appended rows keep their own out-of-bag rows
+        RandomForest forest = new RandomForest(10);
+        List<Record> records = TestRecords.separable(200);
+        forest.train(records, new Random(42));
+        forest.refreshTrees(TestRecords.separable(300), new Random(43), 5);
+        FeatureImportance importance = forest.computeFeatureImportance(NAMES, 42, 0);
+        assertEquals(10, importance.getTreesScored(), "Kept and refreshed trees should all be scored");
+    }
+
+    @Test
+    void test_computeFeatureImportance_edge_refreshOnSmallerDataset() {
+        // Scenario: Row set replaced by a smaller one; kept trees have in-bag rows past the new end
+        RandomForest forest = new RandomForest(10);
+        forest.train(TestRecords.separable(300), new Random(42));
+        forest.refreshTrees(TestRecords.separable(100), new Random(43), 4);
+        FeatureImportance importance = forest.computeFeatureImportance(NAMES, 42, 0);
+        assertEquals(4, importance.getTreesScored(), "Only trees built on the current rows should be scored");
+    }
+
+    @Test
+    void test_discardOutOfBagRows_normal() {
+        // Scenario: Rows replaced without shrinking; the caller discards the stale in-bag sets
+        RandomForest forest = new RandomForest(6);
+        forest.train(TestRecords.separable(200), new Random(42));
+        forest.discardOutOfBagRows();
+        forest.refreshTrees(TestRecords.separable(200), new Random(43), 2);
+        FeatureImportance importance = forest.computeFeatureImportance(NAMES, 42, 0);
+        assertEquals(2, importance.getTreesScored(), "Trees with discarded in-bag rows should not be scored");
+        double[] gain = importance.getSplitGainImportance();
+        assertEquals(1.0, gain[0] + gain[1] + gain[2], 1e-9, "Split gain should still cover every tree");
+    }
+
+    @Test
+    void test_computeFeatureImportance_edge_cancelled() {
+        // Scenario: Cancel requested while importance is being computed
+        RandomForest forest = new RandomForest(5);
+        forest.train(TestRecords.separable(100), new Random(42));
+        TrainingListener cancelled = new TrainingListener() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+        assertThrows(CancellationException.class, () -> forest.computeFeatureImportance(NAMES, 1, 0, cancelled),
+                "Cancelled computation should throw CancellationException");
+    }
+
+    @Test
+    void test_computeFeatureImportance_error_overBudget() {
+        // Scenario: The budget covers the dataset and forest but leaves no room for the importance working set
+        RandomForest forest = new RandomForest(5);
+        forest.train(TestRecords.separable(100), new Random(42));
+        MemoryEstimate trained = forest.getMemoryEstimate();
+        forest.setMemoryBudget(trained.getDatasetBytes() + trained.getForestBytes() + 64);
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> forest.computeFeatureImportance(NAMES, 1, 0),
+                "Importance that does not fit the budget should be refused");
+        assertTrue(ex.getMessage().contains("skipped"), "Message should say importance was skipped");
+        forest.setMemoryBudget(0);
+        assertEquals(5, forest.computeFeatureImportance(NAMES, 1, 0).getTreesScored(), "Without a budget it should run");
+    }
+
+    @Test
+    void test_computeFeatureImportance_error_notTrained() {
+        // Scenario: Importance before training (edge case)
+        assertThrows(IllegalStateException.class, () -> new RandomForest(5).computeFeatureImportance(NAMES, 1, 0),
+                "Untrained forest should throw IllegalStateException");
+    }
+
+    @Test
+    void test_computeFeatureImportance_error_wrongNames() {
+        // Scenario: Feature name count does not match the data width
+        RandomForest forest = new RandomForest(5);
+        forest.train(TestRecords.separable(100), new Random(42));
+        assertThrows(IllegalArgumentException.class, () -> forest.computeFeatureImportance(NAMES.subList(0, 2), 1, 0),
+                "Mismatched names should throw IllegalArgumentException");
+    }
+}
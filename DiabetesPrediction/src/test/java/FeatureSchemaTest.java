@@ -0,0 +1,45 @@
+package diabetes;
+
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.Collections;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeatureSchemaTest {
+
+    @Test
+    void test_fromHeader_normal() {
+        // Scenario: Standard diabetes header with a BOM and padded names
+        FeatureSchema schema = FeatureSchema.fromHeader("\uFEFFPregnancies ,Glucose,BloodPressure,SkinThickness,Insulin,BMI,DiabetesPedigreeFunction,Age,Outcome");
+        assertEquals(8, schema.getFeatureCount(), "Header should yield 8 features");
+        assertEquals("Pregnancies", schema.getFeatureNames().get(0), "Names should be trimmed and BOM stripped");
+        assertEquals(8, schema.getLabelColumn(), "Outcome should be the label column");
+        assertEquals(9, schema.getColumnCount(), "Column count should include the label");
+    }
+
+    @Test
+    void test_fromHeader_edge_labelInMiddle() {
+        // Scenario: Outcome column is not last, so feature indices shift around it
+        FeatureSchema schema = FeatureSchema.fromHeader("A,Outcome,B,C");
+        assertEquals(Arrays.asList("A", "B", "C"), schema.getFeatureNames(), "Label column should be excluded from features");
+        assertEquals(0, schema.featureIndexOf(0), "Column before label keeps its index");
+        assertEquals(-1, schema.featureIndexOf(1), "Label column maps to -1");
+        assertEquals(1, schema.featureIndexOf(2), "Column after label shifts down by one");
+    }
+
+    @Test
+    void test_fromHeader_edge_noOutcome() {
+        // Scenario: Header without an Outcome column uses the last column as label
+        FeatureSchema schema = FeatureSchema.fromHeader("X1,X2,Diagnosis");
+        assertEquals(2, schema.getFeatureCount(), "Last column should be treated as label");
+        assertEquals("Diagnosis", schema.getLabelName(), "Label name should come from the header");
+    }
+
+    @Test
+    void test_constructor_error_noFeatures() {
+        // Scenario: Schema without any features (boundary case)
+        assertThrows(IllegalArgumentException.class, () -> {
+            new FeatureSchema(Collections.emptyList(), "Outcome", 0);
+        }, "Empty feature list should throw IllegalArgumentException");
+    }
+}
@@ -0,0 +1,39 @@
+package diabetes;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    void test_getValueAtPercentile_normal() {
+        // Scenario: 1..10000 microseconds recorded once each
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long us = 1; us <= 10_000; us++) {
+            histogram.record(us * 1000);
+        }
+        assertEquals(10_000, histogram.getCount(), "Every value should be counted");
+        assertEquals(5_000_000, histogram.getValueAtPercentile(50), 5_000_000 * 0.01, "p50 should be within 1%");
+        assertEquals(9_900_000, histogram.getValueAtPercentile(99), 9_900_000 * 0.01, "p99 should be within 1%");
+        assertEquals(10_000_000, histogram.getMax(), "Max should be exact");
+    }
+
+    @Test
+    void test_merge_normal() {
+        // Scenario: Two per-thread histograms merged into one
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(100);
+        b.record(100_000);
+        a.merge(b);
+        assertEquals(2, a.getCount(), "Merged count should add up");
+        assertEquals(100_000, a.getMax(), "Merged max should be the larger max");
+        assertEquals(100, a.getValueAtPercentile(50), "Small values are recorded exactly");
+    }
+
+    @Test
+    void test_getValueAtPercentile_edge_empty() {
+        // Scenario: No values recorded (boundary case)
+        assertEquals(0, new LatencyHistogram().getValueAtPercentile(99), "Empty histogram should report 0");
+    }
+}
@@ -0,0 +1,63 @@
+package diabetes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadTestHarnessTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void test_run_normal() throws IOException, InterruptedException {
+        // Scenario: Short open-loop run on a seeded synthetic model with virtual threads
+        File csvFile = new File(tempDir, "synthetic.csv");
+        SyntheticData.writeCsv(csvFile, 300, 42);
+        RecordCollector collector = new RecordCollector();
+        assertTrue(collector.loadFromCSV(csvFile.getAbsolutePath()), "Synthetic CSV should load");
+        RandomForest forest = new RandomForest(10);
+        forest.train(collector.getRecords(), new Random(42));
+
+        LoadTestHarness harness = new LoadTestHarness(collector, forest, 42);
+        LoadTestHarness.Report report = harness.run(200, Duration.ofMillis(500), 2, true);
+        assertEquals(100, report.getRequests(), "Open-loop schedule should issue rate * duration requests");
+        assertTrue(report.getHistogram().getValueAtPercentile(99) > 0, "Latencies should be recorded");
+        assertTrue(report.toString().contains("p99.9"), "Report should include tail percentiles");
+    }
+
+    @Test
+    void test_run_normal_wideSchema() throws IOException, InterruptedException {
+        // Scenario: Dataset with a non-Pima schema (as with --csv); inputs must follow its width
+        File csvFile = new File(tempDir, "wide.csv");
+        Random random = new Random(5);
+        try (FileWriter writer = new FileWriter(csvFile)) {
+            writer.write("A,B,C,D,E,F,G,H,I,J,K,L,Outcome\n");
+            for (int i = 0; i < 100; i++) {
+                StringBuilder row = new StringBuilder();
+                for (int j = 0; j < 12; j++) row.append(random.nextInt(50)).append(',');
+                writer.write(row.toString() + (i % 2) + "\n");
+            }
+        }
+        RecordCollector collector = new RecordCollector();
+        assertTrue(collector.loadFromCSV(csvFile.getAbsolutePath()), "Wide CSV should load");
+        RandomForest forest = new RandomForest(5);
+        forest.train(collector.getRecords(), new Random(42));
+
+        LoadTestHarness.Report report = new LoadTestHarness(collector, forest, 42).run(200, Duration.ofMillis(250), 2, false);
+        assertEquals(50, report.getRequests(), "Every scheduled request should complete on a 12-feature schema");
+    }
+
+    @Test
+    void test_run_error_invalidRate() {
+        // Scenario: Zero request rate (boundary case)
+        LoadTestHarness harness = new LoadTestHarness(new RecordCollector(), new RandomForest(1), 1);
+        assertThrows(IllegalArgumentException.class, () -> harness.run(0, Duration.ofSeconds(1), 1, false),
+                "Non-positive rate should throw IllegalArgumentException");
+    }
+}
@@ -0,0 +1,51 @@
+package diabetes;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryEstimateTest {
+
+    @Test
+    void test_plan_normal_unlimited() {
+        // Scenario: No budget keeps the configured tree count and a full-size bootstrap
+        List<Record> records = records(1000);
+        MemoryEstimate estimate = MemoryEstimate.plan(records, 50, 0);
+        assertEquals(50, estimate.getTreeCount(), "Tree count should be unchanged");
+        assertEquals(1000, estimate.getSampleSize(), "Bootstrap should sample every row");
+        assertTrue(estimate.getAdjustments().isEmpty(), "No degradation without a budget");
+        assertEquals(MemoryEstimate.datasetBytes(records), estimate.getDatasetBytes(), "Dataset size should be estimated from the records");
+        assertTrue(estimate.getDatasetBytes() > 1000 * 8 * 16, "Dense rows should account for boxed doubles");
+    }
+
+    @Test
+    void test_plan_edge_tightBudget() {
+        // Scenario: Budget just above the dataset size forces a smaller bootstrap and fewer trees
+        List<Record> records = records(20000);
+        long dataset = MemoryEstimate.datasetBytes(records);
+        MemoryEstimate estimate = MemoryEstimate.plan(records, 500, dataset + 1_000_000);
+        assertTrue(estimate.getSampleSize() < 20000, "Bootstrap sample should shrink");
+        assertTrue(estimate.getTreeCount() < 500, "Tree count should be capped");
+        assertTrue(estimate.getTreeCount() > 0, "At least one tree should still fit");
+        assertEquals(2, estimate.getAdjustments().size(), "Both degradation steps should be reported");
+        assertTrue(estimate.getTotalBytes() <= dataset + 1_000_000, "Plan should stay within the budget");
+    }
+
+    @Test
+    void test_plan_error_budgetBelowDataset() {
+        // Scenario: Budget smaller than the dataset itself (boundary case)
+        List<Record> records = records(1000);
+        assertThrows(IllegalStateException.class, () -> MemoryEstimate.plan(records, 10, 1024),
+                "Impossible budget should fail before training starts");
+    }
+
+    private List<Record> records(int count) {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new Record(i + 1, new ArrayList<>(Arrays.asList(1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0)), i % 2 == 0));
+        }
+        return records;
+    }
+}
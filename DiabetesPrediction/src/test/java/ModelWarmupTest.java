@@ -0,0 +1,94 @@
+package diabetes;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModelWarmupTest {
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void test_warmUp_normal() throws IOException {
+        // Scenario: Warm up a small forest trained on seeded synthetic data
+        File csvFile = new File(tempDir, "synthetic.csv");
+        SyntheticData.writeCsv(csvFile, 200, 42);
+        RecordCollector collector = new RecordCollector();
+        assertTrue(collector.loadFromCSV(csvFile.getAbsolutePath()), "Synthetic CSV should load");
+        RandomForest forest = new RandomForest(5);
+        forest.train(collector.getRecords(), new Random(42));
+
+        ModelWarmup.Report report = ModelWarmup.warmUp(forest, collector, 500, 42);
+        assertEquals(500, report.getIterations(), "Every warm-up prediction should be counted");
+        assertTrue(report.getSteadyLatencyNanos() > 0, "Steady-state latency should be measured");
+        assertTrue(report.getFirstFastIteration() >= 0 && report.getFirstFastIteration() < 500,
+                "First fast prediction should be one of the warm-up predictions");
+        assertTrue(report.getFirstFastMillis() >= 0 && report.getFirstFastMillis() <= report.getWarmupMillis(),
+                "Time to first fast prediction should be measured from the start of the warm-up");
+        assertTrue(report.toString().contains("first fast prediction #"), "Report should state the first fast prediction");
+    }
+
+    @Test
+    void test_warmUp_normal_wideSchema() throws IOException {
+        // Scenario: 20-feature dataset; warm-up inputs must follow the loaded schema, not the Pima layout
+        File csvFile = new File(tempDir, "wide.csv");
+        Random random = new Random(3);
+        try (FileWriter writer = new FileWriter(csvFile)) {
+            StringBuilder header = new StringBuilder();
+            for (int j = 0; j < 20; j++) header.append("F").append(j).append(',');
+            writer.write(header + "Outcome\n");
+            for (int i = 0; i < 60; i++) {
+                StringBuilder row = new StringBuilder();
+                for (int j = 0; j < 20; j++) row.append(random.nextInt(100)).append(',');
+                writer.write(row.toString() + (i % 2) + "\n");
+            }
+        }
+        RecordCollector collector = new RecordCollector();
+        assertTrue(collector.loadFromCSV(csvFile.getAbsolutePath()), "Wide CSV should load");
+        RandomForest forest = new RandomForest(5);
+        forest.train(collector.getRecords(), new Random(42));
+
+        ModelWarmup.Report report = ModelWarmup.warmUp(forest, collector, 200, 42);
+        assertEquals(200, report.getIterations(), "Warm-up should run on a non-Pima schema");
+    }
+
+    @Test
+    void test_warmUp_edge_cancelled() throws IOException {
+        // Scenario: Cancel requested while warming up
+        File csvFile = new File(tempDir, "synthetic.csv");
+        SyntheticData.writeCsv(csvFile, 100, 42);
+        RecordCollector collector = new RecordCollector();
+        assertTrue(collector.loadFromCSV(csvFile.getAbsolutePath()), "Synthetic CSV should load");
+        RandomForest forest = new RandomForest(3);
+        forest.train(collector.getRecords(), new Random(42));
+        TrainingListener cancelled = new TrainingListener() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        };
+        assertThrows(CancellationException.class, () -> ModelWarmup.warmUp(forest, collector, 1000, 42, cancelled),
+                "Cancelled warm-up should throw CancellationException");
+    }
+
+    @Test
+    void test_warmUp_error_notTrained() {
+        // Scenario: Warm-up before any dataset was loaded (edge case)
+        RandomForest forest = new RandomForest(1);
+        assertThrows(IllegalStateException.class, () -> ModelWarmup.warmUp(forest, new RecordCollector(), 10, 1),
+                "Warm-up without normalization should throw IllegalStateException");
+    }
+
+    @Test
+    void test_warmUp_error_invalidIterations() {
+        // Scenario: Zero warm-up iterations (boundary case)
+        assertThrows(IllegalArgumentException.class, () -> ModelWarmup.warmUp(new RandomForest(1), new RecordCollector(), 0, 1),
+                "Non-positive iteration count should throw IllegalArgumentException");
+    }
+}
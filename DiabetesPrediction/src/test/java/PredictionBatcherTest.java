@@ -0,0 +1,210 @@
+package diabetes;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PredictionBatcherTest {
+
+    @Test
+    void test_submit_normal_matchesPredict() throws Exception {
+        // Scenario: Many concurrent callers get the same answers as direct predict calls
+        RandomForest forest = trainedForest();
+        List<List<Double>> inputs = new ArrayList<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            inputs.add(Arrays.asList(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()));
+        }
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try (PredictionBatcher batcher = new PredictionBatcher(forest, 32, Duration.ofMillis(2), 1000)) {
+            List<Future<PredictionResult>> results = new ArrayList<>();
+            for (List<Double> input : inputs) {
+                results.add(callers.submit(() -> batcher.submit(input).get(5, TimeUnit.SECONDS)));
+            }
+            for (int i = 0; i < inputs.size(); i++) {
+                PredictionResult result = results.get(i).get();
+                assertEquals(forest.predict(inputs.get(i)), result.isDiabetic(), "Batched result should match predict");
+                assertEquals(9, result.getTreeCount(), "Result should report the forest size");
+            }
+            assertEquals(200, batcher.getPredictionCount(), "Every request should be scored");
+        } finally {
+            callers.shutdown();
+        }
+    }
+
+    @Test
+    void test_submit_normal_coalescesQueuedRequests() throws Exception {
+        // Scenario: Requests that queue up while a batch is being scored are scored together in one batch
+        CountDownLatch scoring = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (PredictionBatcher batcher = new PredictionBatcher(blockingForest(scoring, release), 32, Duration.ofMillis(20), 100)) {
+            CompletableFuture<PredictionResult> first = batcher.submit(Arrays.asList(0.0, 1.0, 0.0));
+            assertTrue(scoring.await(5, TimeUnit.SECONDS), "Worker should start scoring the first request");
+            List<CompletableFuture<PredictionResult>> queued = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                queued.add(batcher.submit(Arrays.asList(0.0, i % 2 == 0 ? 1.0 : -1.0, 0.0)));
+            }
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            for (CompletableFuture<PredictionResult> future : queued) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(11, batcher.getPredictionCount(), "Every request should be scored");
+            assertEquals(2, batcher.getBatchCount(), "The ten queued requests should form a single batch");
+        }
+    }
+
+    @Test
+    void test_submit_edge_queueFull() throws Exception {
+        // Scenario: Worker is busy and the bounded queue is full, so the next request is shed
+        CountDownLatch scoring = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (PredictionBatcher batcher = new PredictionBatcher(blockingForest(scoring, release), 8, Duration.ofMillis(1), 2)) {
+            CompletableFuture<PredictionResult> inFlight = batcher.submit(Arrays.asList(0.0, 1.0, 0.0));
+            assertTrue(scoring.await(5, TimeUnit.SECONDS), "Worker should start scoring the first request");
+            CompletableFuture<PredictionResult> queued1 = batcher.submit(Arrays.asList(0.0, 1.0, 0.0));
+            CompletableFuture<PredictionResult> queued2 = batcher.submit(Arrays.asList(0.0, -1.0, 0.0));
+            CompletableFuture<PredictionResult> shed = batcher.submit(Arrays.asList(0.0, -1.0, 0.0));
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> shed.get(1, TimeUnit.SECONDS),
+                    "Request beyond the queue capacity should fail at once");
+            assertTrue(ex.getCause() instanceof RejectedExecutionException, "Failure should be a RejectedExecutionException");
+            assertTrue(ex.getCause().getMessage().contains("full"), "Message should say the queue is full");
+            release.countDown();
+            inFlight.get(5, TimeUnit.SECONDS);
+            queued1.get(5, TimeUnit.SECONDS);
+            queued2.get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void test_submit_error_wrongWidth() throws Exception {
+        // Scenario: A 1-feature request against a 3-feature forest is rejected at submit; the valid one still scores
+        try (PredictionBatcher batcher = new PredictionBatcher(trainedForest(), 8, Duration.ofMillis(5), 10)) {
+            CompletableFuture<PredictionResult> good = batcher.submit(Arrays.asList(0.0, 1.0, 0.0));
+            CompletableFuture<PredictionResult> bad = batcher.submit(List.of(1.0));
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> bad.get(0, TimeUnit.SECONDS),
+                    "Wrong-width input should fail without waiting for the worker");
+            assertTrue(ex.getCause() instanceof IllegalArgumentException, "Failure should be an IllegalArgumentException");
+            assertNotNull(good.get(5, TimeUnit.SECONDS), "Valid request should be scored");
+        }
+    }
+
+    @Test
+    void test_submit_edge_badRequestInBatch() throws Exception {
+        // Scenario: One request that makes batch scoring throw is queued between two valid ones in the same batch;
+        // only that request fails
+        CountDownLatch scoring = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RandomForest forest = trained(new RandomForest(9) {
+            @Override
+            public List<PredictionResult> predictBatch(List<List<Double>> batch) {
+                scoring.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (List<Double> input : batch) {
+                    if (input.contains(Double.NaN)) throw new IllegalArgumentException("NaN input");
+                }
+                return super.predictBatch(batch);
+            }
+        });
+        try (PredictionBatcher batcher = new PredictionBatcher(forest, 32, Duration.ofMillis(20), 100)) {
+            CompletableFuture<PredictionResult> first = batcher.submit(Arrays.asList(0.0, 1.0, 0.0));
+            assertTrue(scoring.await(5, TimeUnit.SECONDS), "Worker should start scoring the first request");
+            CompletableFuture<PredictionResult> good1 = batcher.submit(Arrays.asList(0.0, 1.0, 0.0));
+            CompletableFuture<PredictionResult> bad = batcher.submit(Arrays.asList(0.0, Double.NaN, 0.0));
+            CompletableFuture<PredictionResult> good2 = batcher.submit(Arrays.asList(0.0, -1.0, 0.0));
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            assertEquals(forest.predict(Arrays.asList(0.0, 1.0, 0.0)), good1.get(5, TimeUnit.SECONDS).isDiabetic(),
+                    "Valid request batched with a bad one should still be scored");
+            assertEquals(forest.predict(Arrays.asList(0.0, -1.0, 0.0)), good2.get(5, TimeUnit.SECONDS).isDiabetic(),
+                    "Valid request batched with a bad one should still be scored");
+            ExecutionException ex = assertThrows(ExecutionException.class, () -> bad.get(5, TimeUnit.SECONDS),
+                    "The bad request should fail");
+            assertTrue(ex.getCause() instanceof IllegalArgumentException, "The bad request should carry its own error");
+        }
+    }
+
+    @Test
+    void test_close_edge_concurrentSubmit() throws Exception {
+        // Scenario: Callers keep submitting while the batcher closes; every future must still complete
+        List<CompletableFuture<PredictionResult>> futures = new CopyOnWriteArrayList<>();
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        PredictionBatcher batcher = new PredictionBatcher(trainedForest(), 16, Duration.ofMillis(1), 10_000);
+        CountDownLatch started = new CountDownLatch(4);
+        try {
+            for (int t = 0; t < 4; t++) {
+                callers.submit(() -> {
+                    started.countDown();
+                    for (int i = 0; i < 2000; i++) {
+                        futures.add(batcher.submit(Arrays.asList(0.0, 1.0, 0.0)));
+                    }
+                });
+            }
+            started.await(5, TimeUnit.SECONDS);
+            batcher.close();
+        } finally {
+            callers.shutdown();
+            assertTrue(callers.awaitTermination(10, TimeUnit.SECONDS), "Callers should finish");
+        }
+        for (CompletableFuture<PredictionResult> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException, "Unscored requests should be rejected");
+            }
+        }
+    }
+
+    @Test
+    void test_submit_error_closed() {
+        // Scenario: Submitting after close is rejected instead of hanging
+        PredictionBatcher batcher = new PredictionBatcher(trainedForest(), 8, Duration.ofMillis(1), 10);
+        batcher.close();
+        CompletableFuture<PredictionResult> future = batcher.submit(Arrays.asList(0.0, 0.0, 0.0));
+        ExecutionException ex = assertThrows(ExecutionException.class, future::get, "Closed batcher should fail the future");
+        assertTrue(ex.getCause() instanceof RejectedExecutionException, "Failure should be a RejectedExecutionException");
+    }
+
+    @Test
+    void test_constructor_error_invalidBatchSize() {
+        // Scenario: Zero batch size (boundary case)
+        assertThrows(IllegalArgumentException.class, () -> {
+            new PredictionBatcher(trainedForest(), 0, Duration.ofMillis(1), 10);
+        }, "Batch size below 1 should throw IllegalArgumentException");
+    }
+
+    private RandomForest trainedForest() {
+        return trained(new RandomForest(9));
+    }
+
+    // Forest whose batch scoring signals `scoring` and then waits for `release`, to hold the worker busy
+    private RandomForest blockingForest(CountDownLatch scoring, CountDownLatch release) {
+        return trained(new RandomForest(9) {
+            @Override
+            public List<PredictionResult> predictBatch(List<List<Double>> batch) {
+                scoring.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.predictBatch(batch);
+            }
+        });
+    }
+
+    private RandomForest trained(RandomForest forest) {
+        forest.train(TestRecords.separable(80), new Random(42));
+        return forest;
+    }
+}
@@ -6,10 +6,13 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class RandomForestTest {
@@ -105,4 +108,141 @@ public class RandomForestTest {
         double accuracy = forest.computeAccuracy(collector.getRecords());
         assertTrue(accuracy >= 0.0 && accuracy <= 100.0, "Accuracy should be between 0 and 100");
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_train_normal_progressEvents() {
+        // Scenario: Listener receives one event per tree with a running out-of-bag accuracy
+        List<Record> records = TestRecords.separable(60);
+        RandomForest forest = new RandomForest(8);
+        List<Integer> built = new ArrayList<>();
+        List<Double> accuracies = new ArrayList<>();
+        forest.train(records, new Random(42), new TrainingListener() {
+            @Override
+            public void treeBuilt(int treesBuilt, int totalTrees, double oobAccuracy) {
+                assertEquals(8, totalTrees, "Total should match the configured tree count");
+                built.add(treesBuilt);
+                accuracies.add(oobAccuracy);
+            }
+        });
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8), built, "Should report each tree in order");
+        assertTrue(accuracies.stream().allMatch(a -> a >= 0.0 && a <= 100.0), "OOB accuracy should be a percentage");
+        assertEquals(accuracies.get(7), forest.getOobAccuracy(), 1e-9, "Final OOB accuracy should be kept on the forest");
+    }
+
+    @Test
+    void test_train_edge_cancelled() throws NoSuchFieldException, IllegalAccessException {
+        // Scenario: Cancel after three trees; the previously trained model must survive
+        List<Record> records = TestRecords.separable(60);
+        RandomForest forest = new RandomForest(5);
+        forest.train(records, new Random(1));
+        int[] treesSeen = {0};
+        TrainingListener cancelAfterThree = new TrainingListener() {
+            @Override
+            public void treeBuilt(int treesBuilt, int totalTrees, double oobAccuracy) {
+                treesSeen[0] = treesBuilt;
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return treesSeen[0] >= 3;
+            }
+        };
+        assertThrows(CancellationException.class, () -> forest.train(records, new Random(2), cancelAfterThree),
+                "Cancelled training should throw CancellationException");
+        assertEquals(3, treesSeen[0], "Training should stop at the first check after cancellation");
+
+        Field treesField = RandomForest.class.getDeclaredField("trees");
+        treesField.setAccessible(true);
+        List<Tree> trees = (List<Tree>) treesField.get(forest);
+        assertEquals(5, trees.size(), "Previous model should be left intact");
+    }
+
+    @Test
+    void test_predictBatch_normal() {
+        // Scenario: Batch kernel agrees with single predictions and reports vote counts
+        List<Record> records = TestRecords.separable(60);
+        RandomForest forest = new RandomForest(7);
+        forest.train(records, new Random(42));
+        List<List<Double>> batch = new ArrayList<>();
+        for (Record record : records) batch.add(record.getFeatures());
+        List<PredictionResult> results = forest.predictBatch(batch);
+        assertEquals(records.size(), results.size(), "One result per input");
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(forest.predict(batch.get(i)), results.get(i).isDiabetic(), "Batch result should match predict");
+            assertTrue(results.get(i).getVotes() <= 7, "Votes cannot exceed tree count");
+        }
+    }
+
+    @Test
+    void test_refreshTrees_normal() throws NoSuchFieldException, IllegalAccessException {
+        // Scenario: Replace the two oldest trees after new data arrives; forest size stays fixed
+        RandomForest forest = new RandomForest(5);
+        forest.train(TestRecords.separable(40), new Random(42));
+        Field treesField = RandomForest.class.getDeclaredField("trees");
+        treesField.setAccessible(true);
+        List<Tree> before = new ArrayList<>((List<Tree>) treesField.get(forest));
+
+        forest.refreshTrees(TestRecords.separable(60), new Random(43), 2);
+        List<Tree> after = (List<Tree>) treesField.get(forest);
+        assertEquals(5, after.size(), "Forest size should not change");
+        assertEquals(before.subList(2, 5), after.subList(0, 3), "The newest trees should be kept in order");
+        assertFalse(after.contains(before.get(0)), "The oldest tree should be replaced");
+    }
+
+    @Test
+    void test_train_edge_memoryBudget() {
+        // Scenario: Budget that fits the data but only a few worst-case trees caps the forest
+        List<Record> records = TestRecords.separable(200);
+        RandomForest forest = new RandomForest(100);
+        MemoryEstimate unlimited = forest.estimateMemory(records);
+        long perTree = unlimited.getForestBytes() / 100;
+        forest.setMemoryBudget(unlimited.getDatasetBytes() + unlimited.getBootstrapBytes() + perTree * 5);
+        forest.train(records, new Random(42));
+        MemoryEstimate estimate = forest.getMemoryEstimate();
+        assertEquals(5, estimate.getTreeCount(), "Tree count should be capped to what fits the budget");
+        assertTrue(estimate.getAdjustments().get(0).contains("capped"), "Degradation should be reported");
+        assertTrue(estimate.getForestBytes() <= perTree * 5, "Measured forest should not exceed the worst-case estimate");
+    }
+
+    @Test
+    void test_estimateMemory_normal_countsCollector() {
+        // Scenario: Incrementally ingested collector keeps raw rows, which the plan must count
+        RecordCollector collector = new RecordCollector();
+        collector.startDataset("A,B,C,Outcome");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            lines.add(i % 7 + "," + i % 13 + "," + i % 5 + "," + i % 2);
+        }
+        collector.appendRows(lines);
+        RandomForest forest = new RandomForest(10);
+        List<Record> records = collector.getRecords();
+        MemoryEstimate recordsOnly = forest.estimateMemory(records);
+        MemoryEstimate whole = forest.estimateMemory(collector, records);
+        assertTrue(whole.getDatasetBytes() >= collector.estimateMemoryBytes(), "Plan should count the collector footprint");
+        assertTrue(whole.getDatasetBytes() > recordsOnly.getDatasetBytes(), "Retained raw rows should add to the dataset term");
+
+        forest.train(records, whole, new Random(42), TrainingListener.NONE);
+        assertEquals(whole.getDatasetBytes(), forest.getMemoryEstimate().getDatasetBytes(), "Training should use the same plan");
+    }
+
+    @Test
+    void test_refreshTrees_edge_keepsPlannedSampleSize() throws NoSuchFieldException, IllegalAccessException {
+        // Scenario: The budget halved the bootstrap at training; refreshed trees must not go back to full-size samples
+        List<Record> records = TestRecords.separable(400);
+        RandomForest forest = new RandomForest(4);
+        MemoryEstimate full = forest.estimateMemory(records);
+        int n = records.size();
+        forest.setMemoryBudget(full.getDatasetBytes() + MemoryEstimate.bootstrapBytes(n, n / 2) + MemoryEstimate.perTreeBytes(n, n / 2));
+        forest.train(records, new Random(42));
+        int planned = forest.getMemoryEstimate().getSampleSize();
+        assertTrue(planned < n, "Budget should reduce the bootstrap sample");
+
+        forest.refreshTrees(TestRecords.separable(800), new Random(43), 4);
+        Field inBagField = RandomForest.class.getDeclaredField("inBagRows");
+        inBagField.setAccessible(true);
+        for (BitSet inBag : (List<BitSet>) inBagField.get(forest)) {
+            assertTrue(inBag.cardinality() <= 2 * planned, "Refreshed bootstrap should keep the planned sample fraction");
+            assertTrue(inBag.cardinality() < 500, "Drawing 800 rows would cover about 506 distinct rows");
+        }
+    }
+}
@@ -5,8 +5,11 @@ import org.junit.jupiter.api.io.TempDir;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class RecordCollectorTest {
@@ -116,4 +119,186 @@ public class RecordCollectorTest {
             collector.normalizeInput(input);
         }, "normalizeInput should throw IllegalStateException if untrained");
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_loadFromCSV_normal_wideSchema() throws IOException {
+        // Scenario: Header declares 40 lab columns, most of them missing, label not in last position
+        File csvFile = new File(tempDir, "test_wide.csv");
+        try (FileWriter writer = new FileWriter(csvFile)) {
+            StringBuilder header = new StringBuilder("Outcome");
+            for (int i = 0; i < 40; i++) header.append(",Lab").append(i);
+            writer.write(header + "\n");
+            writer.write("1,5.0" + ",".repeat(39) + "\n");
+            writer.write("0,3.0,2.0" + ",".repeat(38) + "\n");
+        }
+
+        RecordCollector collector = new RecordCollector();
+        assertTrue(collector.loadFromCSV(csvFile.getAbsolutePath()), "Wide CSV should load");
+        assertEquals(40, collector.getFeatureNames().size(), "Schema should be detected from the header");
+        assertEquals("Lab0", collector.getFeatureNames().get(0), "Label column should be excluded from features");
+        List<Record> records = collector.getRecords();
+        assertEquals(2, records.size(), "Should load two records");
+        assertTrue(records.get(0).getLabel(), "Label should be read from the first column");
+        assertTrue(records.get(0).getFeatures() instanceof SparseFeatureList, "Mostly-missing row should be stored sparsely");
+        assertEquals(40, collector.normalizeInput(Collections.nCopies(40, 1.0)).size(), "Inference input should follow the schema width");
+    }
+
+    @Test
+    void test_sampleInputs_normal() throws IOException {
+        // Scenario: Sampled inputs follow the schema width and the column statistics of the loaded data
+        File csvFile = new File(tempDir, "test_sample.csv");
+        try (FileWriter writer = new FileWriter(csvFile)) {
+            writer.write("A,B,C,Outcome\n");
+            for (int i = 0; i < 50; i++) {
+                writer.write((i % 10) + "," + (1000 + i) + ",7," + (i % 2) + "\n");
+            }
+        }
+        RecordCollector collector = new RecordCollector();
+        assertTrue(collector.loadFromCSV(csvFile.getAbsolutePath()), "CSV should load");
+        List<List<Double>> inputs = collector.sampleInputs(500, 1);
+        assertEquals(500, inputs.size(), "Should return the requested number of inputs");
+        double sumB = 0;
+        for (List<Double> input : inputs) {
+            assertEquals(3, input.size(), "Inputs should match the schema width");
+            assertEquals(3, collector.normalizeInput(input).size(), "Inputs should be accepted by normalizeInput");
+            sumB += input.get(1);
+        }
+        assertEquals(1024.5, sumB / inputs.size(), 3.0, "Values should be centred on the column mean");
+    }
+
+    @Test
+    void test_loadFromCSV_normal_releasesRawRows() throws IOException {
+        // Scenario: A full load keeps only the normalized records; appending later rebuilds the raw rows
+        File csvFile = new File(tempDir, "test_release.csv");
+        try (FileWriter writer = new FileWriter(csvFile)) {
+            writer.write("A,B,Outcome\n1,10,1\n2,,0\n4,30,1\n");
+        }
+        RecordCollector collector = new RecordCollector();
+        assertTrue(collector.loadFromCSV(csvFile.getAbsolutePath()), "CSV should load");
+        assertEquals(MemoryEstimate.datasetBytes(collector.getRecords()) + 2 * MemoryEstimate.bitSetBytes(3), collector.estimateMemoryBytes(),
+                "Only the missing-value mask should be retained besides the records after a full load");
+
+        assertEquals(1, collector.appendRows(List.of("5,40,0")), "Appended row should be parsed");
+        assertEquals(4, collector.getRecordCount(), "Rows should include the appended one");
+        try (FileWriter writer = new FileWriter(csvFile, true)) {
+            writer.write("5,40,0\n");
+        }
+        RecordCollector full = new RecordCollector();
+        assertTrue(full.loadFromCSV(csvFile.getAbsolutePath()), "Combined CSV should load");
+        List<Record> expected = full.getRecords();
+        List<Record> actual = collector.getRecords();
+        for (int i = 0; i < expected.size(); i++) {
+            for (int j = 0; j < 2; j++) {
+                assertEquals(expected.get(i).getFeatures().get(j), actual.get(i).getFeatures().get(j), 1e-9,
+                        "Appending after a full load should normalize like a full reload");
+            }
+        }
+    }
+
+    @Test
+    void test_appendRows_edge_valuesNormalizingToZero() throws IOException {
+        // Scenario: Row 2 sits exactly on column A's mean and column B is constant, so both normalize to 0.0
+        // without being missing; appending after a full load must keep their real values
+        File csvFile = new File(tempDir, "test_zero.csv");
+        try (FileWriter writer = new FileWriter(csvFile)) {
+            writer.write("A,B,Outcome\n1,5,1\n2,5,0\n3,5,1\n");
+        }
+        RecordCollector collector = new RecordCollector();
+        assertTrue(collector.loadFromCSV(csvFile.getAbsolutePath()), "CSV should load");
+        assertEquals(0.0, collector.getRecords().get(1).getFeatures().get(0), 1e-12, "Value at the mean should normalize to 0.0");
+        assertEquals(1, collector.appendRows(List.of("10,9,0")), "Appended row should be parsed");
+
+        try (FileWriter writer = new FileWriter(csvFile, true)) {
+            writer.write("10,9,0\n");
+        }
+        RecordCollector full = new RecordCollector();
+        assertTrue(full.loadFromCSV(csvFile.getAbsolutePath()), "Combined CSV should load");
+        List<Record> expected = full.getRecords();
+        List<Record> actual = collector.getRecords();
+        assertEquals(expected.size(), actual.size(), "Row counts should match");
+        for (int i = 0; i < expected.size(); i++) {
+            for (int j = 0; j < 2; j++) {
+                assertEquals(expected.get(i).getFeatures().get(j), actual.get(i).getFeatures().get(j), 1e-9,
+                        "Row " + (i + 1) + " feature " + j + " should keep its real value, not be imputed");
+            }
+        }
+        assertNotEquals(0.0, actual.get(1).getFeatures().get(0), "Row at the old mean should move with the new mean");
+    }
+
+    @Test
+    void test_loadFromCSV_error_declaredSchemaMismatch() throws IOException {
+        // Scenario: Declared 3-feature schema against 8-feature rows, every row has the wrong column count
+        File csvFile = new File(tempDir, "test_declared.csv");
+        try (FileWriter writer = new FileWriter(csvFile)) {
+            writer.write("Pregnancies,Glucose,BloodPressure,SkinThickness,Insulin,BMI,DiabetesPedigreeFunction,Age,Outcome\n");
+            writer.write("6,148,72,35,0,33.6,0.627,50,1\n");
+        }
+
+        RecordCollector collector = new RecordCollector(new FeatureSchema(Arrays.asList("A", "B", "C"), "Outcome", 3));
+        assertFalse(collector.loadFromCSV(csvFile.getAbsolutePath()), "Rows not matching the declared schema should be rejected");
+    }
+
+    @Test
+    void test_loadFromCSV_normal_progressAndCancel() throws IOException {
+        // Scenario: 2500-row file reports rows parsed, and a cancelling listener aborts the load
+        File csvFile = new File(tempDir, "test_progress.csv");
+        try (FileWriter writer = new FileWriter(csvFile)) {
+            writer.write("Pregnancies,Glucose,BloodPressure,SkinThickness,Insulin,BMI,DiabetesPedigreeFunction,Age,Outcome\n");
+            for (int i = 0; i < 2500; i++) {
+                writer.write((i % 10) + ",148,72,35,0,33.6,0.627,50," + (i % 2) + "\n");
+            }
+        }
+
+        List<Integer> reported = new ArrayList<>();
+        RecordCollector collector = new RecordCollector();
+        assertTrue(collector.loadFromCSV(csvFile.getAbsolutePath(), new TrainingListener() {
+            @Override
+            public void rowsParsed(int rows) {
+                reported.add(rows);
+            }
+        }), "CSV should load");
+        assertEquals(Arrays.asList(999, 1999, 2500), reported, "Progress should be reported periodically and at the end");
+
+        RecordCollector cancelled = new RecordCollector();
+        assertThrows(CancellationException.class, () -> cancelled.loadFromCSV(csvFile.getAbsolutePath(), new TrainingListener() {
+            @Override
+            public boolean isCancelled() {
+                return true;
+            }
+        }), "Cancelled load should throw CancellationException");
+    }
+
+    @Test
+    void test_loadFromCSV_normal_warmCache() throws IOException {
+        // Scenario: Second load of the same CSV maps the cache and yields identical data and statistics
+        File csvFile = new File(tempDir, "test_cache.csv");
+        try (FileWriter writer = new FileWriter(csvFile)) {
+            writer.write("Pregnancies,Glucose,BloodPressure,SkinThickness,Insulin,BMI,DiabetesPedigreeFunction,Age,Outcome\n");
+            writer.write("6,148,72,35,0,33.6,0.627,50,1\n");
+            writer.write("1,,66,29,0,26.6,0.351,31,0\n");
+            writer.write("8,183,64,0,0,23.3,0.672,32,1\n");
+        }
+
+        RecordCollector cold = new RecordCollector();
+        cold.setCacheEnabled(true);
+        assertTrue(cold.loadFromCSV(csvFile.getAbsolutePath()), "Cold load should parse the CSV");
+        assertFalse(cold.isLoadedFromCache(), "Cold load should not come from the cache");
+        assertTrue(DatasetCache.cacheFileFor(csvFile.getAbsolutePath()).isFile(), "Cold load should write the cache");
+
+        RecordCollector warm = new RecordCollector();
+        warm.setCacheEnabled(true);
+        assertTrue(warm.loadFromCSV(csvFile.getAbsolutePath()), "Warm load should succeed");
+        assertTrue(warm.isLoadedFromCache(), "Warm load should map the cache");
+        List<Record> expected = cold.getRecords();
+        List<Record> actual = warm.getRecords();
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getFeatures(), actual.get(i).getFeatures(), "Normalized features should match");
+            assertEquals(expected.get(i).getLabel(), actual.get(i).getLabel(), "Labels should match");
+        }
+        List<Double> input = Arrays.asList(6.0, 148.0, 72.0, 35.0, 0.0, 33.6, 0.627, 50.0);
+        assertEquals(cold.normalizeInput(input), warm.normalizeInput(input), "Statistics should match");
+
+        assertEquals(1, warm.appendRows(Arrays.asList("2,100,70,20,0,25.0,0.3,22,0")), "Cache-backed data should accept appended rows");
+        assertEquals(4, warm.getRecords().size(), "Appended row should join the cached rows");
+    }
+}
@@ -0,0 +1,39 @@
+package diabetes;
+
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SparseFeatureListTest {
+
+    @Test
+    void test_of_normal_sparseRow() {
+        // Scenario: Wide row with only two non-zero entries is stored sparsely
+        double[] row = new double[100];
+        row[3] = 1.5;
+        row[97] = -2.0;
+        List<Double> features = SparseFeatureList.of(row);
+        assertTrue(features instanceof SparseFeatureList, "Mostly-zero row should use sparse storage");
+        assertEquals(2, ((SparseFeatureList) features).getStoredCount(), "Only non-zero entries should be stored");
+        assertEquals(100, features.size(), "Size should match the full row width");
+        assertEquals(1.5, features.get(3), "Stored value should be returned");
+        assertEquals(0.0, features.get(50), "Unstored value should read as 0.0");
+        assertEquals(-2.0, features.get(97), "Stored value should be returned");
+    }
+
+    @Test
+    void test_of_normal_denseRow() {
+        // Scenario: Fully populated row stays dense and compares equal to a plain list
+        List<Double> features = SparseFeatureList.of(new double[]{1.0, 2.0, 3.0});
+        assertFalse(features instanceof SparseFeatureList, "Dense row should use a plain list");
+        assertEquals(Arrays.asList(1.0, 2.0, 3.0), features, "Values should be preserved");
+    }
+
+    @Test
+    void test_get_error_outOfRange() {
+        // Scenario: Index past the row width (boundary case)
+        List<Double> features = SparseFeatureList.of(new double[10]);
+        assertThrows(IndexOutOfBoundsException.class, () -> features.get(10), "Out of range index should throw");
+    }
+}
@@ -0,0 +1,24 @@
+package diabetes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Shared fixture: three normalized features where only the second ("glucose") separates the labels.
+// Labels alternate; the generator is seeded, so every call with the same count returns the same rows.
+final class TestRecords {
+    private TestRecords() {
+    }
+
+    static List<Record> separable(int count) {
+        Random random = new Random(7);
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            boolean label = i % 2 == 0;
+            double glucose = (label ? 1.0 : -1.0) + random.nextGaussian() * 0.5;
+            records.add(new Record(i + 1, Arrays.asList(random.nextGaussian(), glucose, random.nextGaussian()), label));
+        }
+        return records;
+    }
+}
@@ -42,4 +42,42 @@ public class TreeTest {
         boolean prediction = tree.predict(Arrays.asList(120.0, 30.0, 45.0, 20.0, 100.0, 33.6, 0.627, 50.0));
         assertTrue(prediction, "Prediction should be true for diabetic-like features");
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_build_normal_mtryAllFeatures() {
+        // Scenario: mtry equal to the width picks the one feature that separates the labels
+        List<Record> records = Arrays.asList(
+                new Record(1, Arrays.asList(0.0, 0.0, 1.0), false),
+                new Record(2, Arrays.asList(0.0, 0.0, 2.0), false),
+                new Record(3, Arrays.asList(0.0, 0.0, 3.0), true),
+                new Record(4, Arrays.asList(0.0, 0.0, 4.0), true)
+        );
+        Tree tree = new Tree(3);
+        tree.build(records, new Random(42));
+        assertTrue(tree.predict(Arrays.asList(0.0, 0.0, 4.0)), "High third feature should predict true");
+        assertFalse(tree.predict(Arrays.asList(0.0, 0.0, 1.0)), "Low third feature should predict false");
+    }
+
+    @Test
+    void test_getSplitGains_normal() {
+        // Scenario: Only the separating feature should be credited with impurity decrease
+        List<Record> records = Arrays.asList(
+                new Record(1, Arrays.asList(0.0, 0.0, 1.0), false),
+                new Record(2, Arrays.asList(0.0, 0.0, 2.0), false),
+                new Record(3, Arrays.asList(0.0, 0.0, 3.0), true),
+                new Record(4, Arrays.asList(0.0, 0.0, 4.0), true)
+        );
+        Tree tree = new Tree(3);
+        tree.build(records, new Random(42));
+        double[] gains = tree.getSplitGains();
+        assertEquals(3, gains.length, "Gains should be indexed by feature");
+        assertEquals(0.5, gains[2], 1e-9, "A perfect root split removes all Gini impurity (0.5)");
+        assertEquals(0.0, gains[0] + gains[1], 1e-9, "Constant features should get no gain");
+    }
+
+    @Test
+    void test_constructor_error_negativeMtry() {
+        // Scenario: Negative mtry (boundary case)
+        assertThrows(IllegalArgumentException.class, () -> new Tree(-1), "Negative mtry should throw IllegalArgumentException");
+    }
+}